@@ -0,0 +1,53 @@
+#!/usr/bin/env bash
+# Measures time from process launch to the first answered login request.
+#
+#   ./scripts/startup-benchmark.sh            plain jar (mvn package)
+#   ./scripts/startup-benchmark.sh cds        AOT + AppCDS (mvn -Pfast-startup package)
+#   ./scripts/startup-benchmark.sh native     native image (mvn -Pnative native:compile)
+#
+# RUNS, PORT and TIMEOUT (seconds to wait for each start) can be overridden from the environment.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+MODE="${1:-jar}"
+RUNS="${RUNS:-5}"
+PORT="${PORT:-8080}"
+TIMEOUT="${TIMEOUT:-120}"
+JAR="hotel-0.0.1-SNAPSHOT.jar"
+
+case "$MODE" in
+  jar)    CMD=(java -jar "target/$JAR") ;;
+  cds)    CMD=(java -XX:SharedArchiveFile=target/extracted/application.jsa -Dspring.aot.enabled=true
+               -Dspring.profiles.active=faststart -jar "target/extracted/$JAR") ;;
+  native) CMD=(target/shetkari-hotel -Dspring.profiles.active=faststart) ;;
+  *)      echo "unknown mode: $MODE" >&2; exit 1 ;;
+esac
+
+for run in $(seq 1 "$RUNS"); do
+  start=$(date +%s%N)
+  "${CMD[@]}" --server.port="$PORT" > "target/startup-$MODE-$run.log" 2>&1 &
+  pid=$!
+  deadline=$(( $(date +%s) + TIMEOUT ))
+
+  # any 2xx or 4xx from the login endpoint means the request path is fully up
+  until code=$(curl -s -o /dev/null -w '%{http_code}' -X POST -H 'Content-Type: application/json' \
+      -d '{"username":"benchmark","password":"benchmark"}' "http://localhost:$PORT/api/user/login") \
+      && [[ "$code" =~ ^[24] ]]; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "$MODE run $run: server exited before answering, see target/startup-$MODE-$run.log" >&2
+      exit 1
+    fi
+    if (( $(date +%s) >= deadline )); then
+      echo "$MODE run $run: no answer within ${TIMEOUT}s, see target/startup-$MODE-$run.log" >&2
+      kill "$pid"
+      wait "$pid" 2>/dev/null || true
+      exit 1
+    fi
+    sleep 0.05
+  done
+
+  end=$(date +%s%N)
+  echo "$MODE run $run: $(( (end - start) / 1000000 )) ms to first successful request"
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+done
@@ -0,0 +1,13 @@
+package com.shelkari.hotel.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.data.repository.config.BootstrapMode;
+
+// repositories are only initialised when first used, so startup does not wait on them
+@Configuration
+@Profile("faststart")
+@EnableMongoRepositories(basePackages = "com.shelkari.hotel.repository", bootstrapMode = BootstrapMode.LAZY)
+public class FastStartupConfiguration {
+}
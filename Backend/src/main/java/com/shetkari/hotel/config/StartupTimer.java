@@ -0,0 +1,54 @@
+package com.shelkari.hotel.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Logs how long after JVM launch the first request was answered successfully,
+ * which is what a user waiting on a cold instance sees. A login answered with
+ * any client error also counts, since it went through the whole request path.
+ */
+@Component
+public class StartupTimer extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimer.class);
+
+    private static final String LOGIN_PATH = "/api/user/login";
+
+    private final AtomicBoolean recorded = new AtomicBoolean();
+    private volatile long timeToFirstRequestMs = -1;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(request, response);
+
+        if (!recorded.get() && isSuccessful(request, response) && recorded.compareAndSet(false, true)) {
+            timeToFirstRequestMs = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+            log.info("First successful request ({} {}) served {} ms after JVM start",
+                    request.getMethod(), request.getRequestURI(), timeToFirstRequestMs);
+        }
+    }
+
+    // a 404 or 401 from a route that is not mapped yet, or not secured yet, must not count
+    private static boolean isSuccessful(HttpServletRequest request, HttpServletResponse response) {
+        int status = response.getStatus();
+        if (status >= 200 && status < 300) {
+            return true;
+        }
+        return status < 500 && LOGIN_PATH.equals(request.getRequestURI());
+    }
+
+    public long getTimeToFirstRequestMs() {
+        return timeToFirstRequestMs;
+    }
+}
@@ -0,0 +1,87 @@
+package com.shelkari.hotel.controller;
+
+import com.shelkari.hotel.service.BackupService;
+import com.shelkari.hotel.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = "*")
+public class AdminController {
+
+    @Autowired
+    private BackupService backupService;
+
+    @Autowired
+    private ExportService exportService;
+
+    @GetMapping("/backups")
+    public List<Map<String, Object>> listBackups() throws IOException {
+        return backupService.listBackups();
+    }
+
+    @PostMapping("/backups")
+    public ResponseEntity<?> createBackup() {
+        try {
+            return ResponseEntity.accepted().body(Map.of("name", backupService.startBackup(), "status", "backup"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(409).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/backups/{name}/restore")
+    public ResponseEntity<?> restoreBackup(@PathVariable String name) throws IOException {
+        try {
+            if (!backupService.startRestore(name)) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.accepted().body(Map.of("name", name, "status", "restore"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(409).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // both bounds are dates, and "to" is inclusive
+    @GetMapping("/export/orders.csv")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return csv("orders", from, to, out -> exportService.writeOrders(startOf(from), startOf(to.plusDays(1)), out));
+    }
+
+    @GetMapping("/export/bills.csv")
+    public ResponseEntity<StreamingResponseBody> exportBills(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return csv("bills", from, to, out -> exportService.writeBills(startOf(from), startOf(to.plusDays(1)), out));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> csv(String name, LocalDate from, LocalDate to,
+                                                             StreamingResponseBody body) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + name + "-" + from + "-to-" + to + ".csv\"")
+                .body(body);
+    }
+
+    private static Date startOf(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -2,11 +2,24 @@ package com.shelkari.hotel.controller;
 
 import com.shelkari.hotel.model.Bill;
 import com.shelkari.hotel.service.BillService;
+import com.shelkari.hotel.service.IdempotencyService;
+import com.shelkari.hotel.service.InvoiceService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @RestController
 @RequestMapping("/api/bill")
@@ -16,6 +29,12 @@ public class BillController {
     @Autowired
     private BillService billService;
 
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @GetMapping("/{guestId}")
     public ResponseEntity<?> getBillByGuestId(@PathVariable String guestId) {
         Optional<Bill> bill = billService.getBillByGuestId(guestId);
@@ -23,7 +42,64 @@ public class BillController {
     }
 
     @PutMapping("/{id}")
-    public Bill updateBillPaymentStatus(@PathVariable String id, @RequestBody Map<String, String> request) {
-        return billService.updateBillPaymentStatus(id, request.get("paymentStatus"));
+    public ResponseEntity<?> updateBillPaymentStatus(@PathVariable String id, @RequestBody Map<String, String> request,
+                                                     @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return idempotencyService.execute("bill-payment", idempotencyKey, fingerprintOf(id, request),
+                () -> ResponseEntity.ok(billService.updateBillPaymentStatus(id, request.get("paymentStatus"))));
+    }
+
+    @GetMapping("/{id}/invoice")
+    public void getInvoice(@PathVariable String id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Optional<Path> invoice = invoiceService.findInvoice(id);
+        if (invoice.isEmpty()) {
+            // not rendered yet: queue it and let the client poll instead of waiting on the render
+            if (!invoiceService.renderAsync(id)) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_ACCEPTED);
+            response.setHeader("Retry-After", "2");
+            return;
+        }
+
+        Path file = invoice.get();
+        String etag = "\"" + invoiceService.hashOf(file) + "\"";
+        response.setHeader("ETag", etag);
+        // the URL is per bill, not per rendering, so revalidate every time; unchanged invoices cost a 304
+        response.setHeader("Cache-Control", "private, no-cache");
+        if (etag.equals(request.getHeader("If-None-Match"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long size = Files.size(file);
+        response.setContentType("text/html;charset=UTF-8");
+        response.setContentLengthLong(size);
+
+        // Tomcat's NIO connector hands the file to sendfile(2) once the handler returns
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+            request.setAttribute("org.apache.tomcat.sendfile.end", size);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file);
+             OutputStream out = response.getOutputStream()) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    // fixed key order, so the same request hashes the same on every node and after restarts
+    private static Map<String, Object> fingerprintOf(String id, Map<String, String> request) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("id", id);
+        fields.put("request", new TreeMap<>(request));
+        return fields;
     }
-}
\ No newline at end of file
+}
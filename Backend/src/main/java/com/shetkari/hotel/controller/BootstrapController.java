@@ -0,0 +1,28 @@
+package com.shelkari.hotel.controller;
+
+import com.shelkari.hotel.service.BootstrapService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/bootstrap")
+@CrossOrigin(origins = "*")
+public class BootstrapController {
+
+    @Autowired
+    private BootstrapService bootstrapService;
+
+    @GetMapping("/{screen}")
+    public ResponseEntity<?> bootstrap(@PathVariable String screen,
+                                       @RequestParam(required = false) List<String> fields) {
+        if (!bootstrapService.isKnownScreen(screen)) {
+            return ResponseEntity.notFound().build();
+        }
+        Set<String> selected = fields != null ? new HashSet<>(fields) : Set.of();
+        return ResponseEntity.ok(bootstrapService.load(screen, selected));
+    }
+}
@@ -1,6 +1,7 @@
 package com.shelkari.hotel.controller;
 
 import com.shelkari.hotel.service.DashboardService;
+import com.shelkari.hotel.service.OrderMetricsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
@@ -13,8 +14,17 @@ public class DashboardController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private OrderMetricsService orderMetricsService;
+
     @GetMapping
     public Map<String, Object> getDashboardStats() {
         return dashboardService.getDashboardStats();
     }
+
+    @GetMapping("/timeseries")
+    public Map<String, Object> getTimeSeries(@RequestParam(defaultValue = "60") int resolution,
+                                             @RequestParam(defaultValue = "1440") int window) {
+        return orderMetricsService.getTimeSeries(resolution, window);
+    }
 }
\ No newline at end of file
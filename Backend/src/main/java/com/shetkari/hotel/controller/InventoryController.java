@@ -0,0 +1,56 @@
+package com.shelkari.hotel.controller;
+
+import com.shelkari.hotel.model.Ingredient;
+import com.shelkari.hotel.model.Recipe;
+import com.shelkari.hotel.service.InventoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/inventory")
+@CrossOrigin(origins = "*")
+public class InventoryController {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @GetMapping
+    public List<Ingredient> getAllIngredients() {
+        return inventoryService.getAllIngredients();
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createIngredient(@RequestBody Ingredient ingredient) {
+        try {
+            return ResponseEntity.status(201).body(inventoryService.createIngredient(ingredient));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error creating ingredient");
+        }
+    }
+
+    @PostMapping("/{id}/adjust")
+    public ResponseEntity<?> adjustStock(@PathVariable String id, @RequestBody Map<String, Long> request) {
+        Long quantity = request.get("quantity");
+        if (quantity == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Quantity is required"));
+        }
+        try {
+            return ResponseEntity.ok(inventoryService.adjustStock(id, quantity));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/recipes")
+    public List<Recipe> getAllRecipes() {
+        return inventoryService.getAllRecipes();
+    }
+
+    @PutMapping("/recipes/{menuItemId}")
+    public Recipe saveRecipe(@PathVariable String menuItemId, @RequestBody Recipe recipe) {
+        return inventoryService.saveRecipe(menuItemId, recipe);
+    }
+}
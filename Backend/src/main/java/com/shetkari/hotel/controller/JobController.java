@@ -0,0 +1,31 @@
+package com.shelkari.hotel.controller;
+
+import com.shelkari.hotel.service.JobScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin(origins = "*")
+public class JobController {
+
+    @Autowired
+    private JobScheduler jobScheduler;
+
+    @GetMapping
+    public List<Map<String, Object>> getJobs() {
+        return jobScheduler.getJobs();
+    }
+
+    // due immediately; whichever node takes the lease first runs it
+    @PostMapping("/{name}/run")
+    public ResponseEntity<?> runNow(@PathVariable String name) {
+        if (!jobScheduler.runNow(name)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.accepted().body(Map.of("name", name, "status", "due"));
+    }
+}
@@ -1,10 +1,12 @@
 package com.shelkari.hotel.controller;
 
 import com.shelkari.hotel.model.MenuItem;
+import com.shelkari.hotel.service.InventoryService;
 import com.shelkari.hotel.service.MenuItemService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -15,9 +17,21 @@ public class MenuController {
     @Autowired
     private MenuItemService menuItemService;
 
+    @Autowired
+    private InventoryService inventoryService;
+
     @GetMapping
     public List<MenuItem> getAllMenuItems() {
-        return menuItemService.getAllMenuItems();
+        // the cached items are shared between requests, so sold-out flags go on copies
+        List<MenuItem> menuItems = new ArrayList<>();
+        for (MenuItem menuItem : menuItemService.getAllMenuItems()) {
+            MenuItem view = new MenuItem(menuItem.getName(), menuItem.getDescription(), menuItem.getCategory(),
+                    menuItem.getPrice());
+            view.setId(menuItem.getId());
+            view.setSoldOut(inventoryService.isSoldOut(menuItem.getId()));
+            menuItems.add(view);
+        }
+        return menuItems;
     }
 
     @PostMapping
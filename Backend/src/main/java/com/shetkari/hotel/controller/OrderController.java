@@ -1,10 +1,13 @@
 package com.shelkari.hotel.controller;
 
 import com.shelkari.hotel.model.Order;
+import com.shelkari.hotel.service.IdempotencyService;
 import com.shelkari.hotel.service.OrderService;
+import com.shelkari.hotel.service.OutOfStockException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,14 +19,24 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @GetMapping
     public List<Map<String, Object>> getAllOrders() {
         return orderService.getAllOrdersWithDetails();
     }
 
     @PostMapping
-    public Order createOrder(@RequestBody Order order) {
-        return orderService.createOrder(order);
+    public ResponseEntity<?> createOrder(@RequestBody Order order,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return idempotencyService.execute("order-create", idempotencyKey, fingerprintOf(order), () -> {
+            try {
+                return ResponseEntity.ok(orderService.createOrder(order));
+            } catch (OutOfStockException e) {
+                return ResponseEntity.status(409).body(Map.of("message", e.getMessage()));
+            }
+        });
     }
 
     @PutMapping("/{id}")
@@ -32,12 +45,24 @@ public class OrderController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteOrder(@PathVariable String id) {
-        try {
-            orderService.deleteOrder(id);
-            return ResponseEntity.ok().body("Order deleted");
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<?> deleteOrder(@PathVariable String id,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return idempotencyService.execute("order-delete", idempotencyKey, id, () -> {
+            try {
+                orderService.deleteOrder(id);
+                return ResponseEntity.ok().body("Order deleted");
+            } catch (RuntimeException e) {
+                return ResponseEntity.notFound().build();
+            }
+        });
+    }
+
+    // only what the client sent: server-side defaults such as createdAt differ on every retry
+    private static Map<String, Object> fingerprintOf(Order order) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("guestId", order.getGuestId());
+        fields.put("items", order.getItems());
+        fields.put("totalPrice", order.getTotalPrice());
+        return fields;
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,35 @@
 package com.shelkari.hotel.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import java.util.ArrayList;
+import java.util.List;
 
 @Document(collection = "bills")
 public class Bill {
     @Id
     private String id;
     private String guestId;
-    private Double roomCharges;
-    private Double foodCharges;
-    private Double totalAmount;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long roomCharges;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long foodCharges;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long totalAmount;
     private String paymentStatus = "Unpaid";
+    // most recent journaled orders already added to foodCharges, so replays stay idempotent
+    @JsonIgnore
+    private List<String> appliedOrderIds = new ArrayList<>();
 
     public Bill() {}
 
-    public Bill(String guestId, Double roomCharges, Double foodCharges, Double totalAmount) {
+    public Bill(String guestId, long roomCharges, long foodCharges, long totalAmount) {
         this.guestId = guestId;
         this.roomCharges = roomCharges;
         this.foodCharges = foodCharges;
@@ -29,15 +43,18 @@ public class Bill {
     public String getGuestId() { return guestId; }
     public void setGuestId(String guestId) { this.guestId = guestId; }
 
-    public Double getRoomCharges() { return roomCharges; }
-    public void setRoomCharges(Double roomCharges) { this.roomCharges = roomCharges; }
+    public long getRoomCharges() { return roomCharges; }
+    public void setRoomCharges(long roomCharges) { this.roomCharges = roomCharges; }
 
-    public Double getFoodCharges() { return foodCharges; }
-    public void setFoodCharges(Double foodCharges) { this.foodCharges = foodCharges; }
+    public long getFoodCharges() { return foodCharges; }
+    public void setFoodCharges(long foodCharges) { this.foodCharges = foodCharges; }
 
-    public Double getTotalAmount() { return totalAmount; }
-    public void setTotalAmount(Double totalAmount) { this.totalAmount = totalAmount; }
+    public long getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(long totalAmount) { this.totalAmount = totalAmount; }
 
     public String getPaymentStatus() { return paymentStatus; }
     public void setPaymentStatus(String paymentStatus) { this.paymentStatus = paymentStatus; }
+
+    public List<String> getAppliedOrderIds() { return appliedOrderIds; }
+    public void setAppliedOrderIds(List<String> appliedOrderIds) { this.appliedOrderIds = appliedOrderIds; }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.shelkari.hotel.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.util.Date;
+
+@Document(collection = "change_stream_tokens")
+public class ChangeStreamToken {
+    @Id
+    private String id;
+    private String token;
+    private Date updatedAt;
+
+    public ChangeStreamToken() {}
+
+    public ChangeStreamToken(String id, String token) {
+        this.id = id;
+        this.token = token;
+        this.updatedAt = new Date();
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+
+    public Date getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Date updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,35 @@
+package com.shelkari.hotel.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Document(collection = "ingredients")
+public class Ingredient {
+    @Id
+    private String id;
+    private String name;
+    private String unit;
+    // whole units of "unit", e.g. grams or pieces
+    private long stock;
+
+    public Ingredient() {}
+
+    public Ingredient(String name, String unit, long stock) {
+        this.name = name;
+        this.unit = unit;
+        this.stock = stock;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getUnit() { return unit; }
+    public void setUnit(String unit) { this.unit = unit; }
+
+    public long getStock() { return stock; }
+    public void setStock(long stock) { this.stock = stock; }
+}
@@ -0,0 +1,60 @@
+package com.shelkari.hotel.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.util.Date;
+
+@Document(collection = "job_leases")
+public class JobLease {
+    // the job name
+    @Id
+    private String id;
+    // node running the job, null while nobody is
+    private String owner;
+    private Date expiresAt = new Date(0);
+    private Date nextRunAt;
+    // progress of an unfinished run, so the next holder resumes instead of starting over
+    private String checkpoint;
+    private long backlog;
+    private String lastRunBy;
+    private Date lastStartedAt;
+    private Date lastFinishedAt;
+    private long lastDurationMs;
+    private String lastError;
+
+    public JobLease() {}
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+
+    public Date getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Date expiresAt) { this.expiresAt = expiresAt; }
+
+    public Date getNextRunAt() { return nextRunAt; }
+    public void setNextRunAt(Date nextRunAt) { this.nextRunAt = nextRunAt; }
+
+    public String getCheckpoint() { return checkpoint; }
+    public void setCheckpoint(String checkpoint) { this.checkpoint = checkpoint; }
+
+    public long getBacklog() { return backlog; }
+    public void setBacklog(long backlog) { this.backlog = backlog; }
+
+    public String getLastRunBy() { return lastRunBy; }
+    public void setLastRunBy(String lastRunBy) { this.lastRunBy = lastRunBy; }
+
+    public Date getLastStartedAt() { return lastStartedAt; }
+    public void setLastStartedAt(Date lastStartedAt) { this.lastStartedAt = lastStartedAt; }
+
+    public Date getLastFinishedAt() { return lastFinishedAt; }
+    public void setLastFinishedAt(Date lastFinishedAt) { this.lastFinishedAt = lastFinishedAt; }
+
+    public long getLastDurationMs() { return lastDurationMs; }
+    public void setLastDurationMs(long lastDurationMs) { this.lastDurationMs = lastDurationMs; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+}
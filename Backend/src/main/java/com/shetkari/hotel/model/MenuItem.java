@@ -1,6 +1,9 @@
 package com.shelkari.hotel.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "menuitems")
@@ -10,11 +13,16 @@ public class MenuItem {
     private String name;
     private String description;
     private String category;
-    private Double price;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long price;
+    // derived from inventory on each read, never stored
+    @Transient
+    private boolean soldOut;
 
     public MenuItem() {}
 
-    public MenuItem(String name, String description, String category, Double price) {
+    public MenuItem(String name, String description, String category, long price) {
         this.name = name;
         this.description = description;
         this.category = category;
@@ -34,6 +42,9 @@ public class MenuItem {
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
 
-    public Double getPrice() { return price; }
-    public void setPrice(Double price) { this.price = price; }
+    public long getPrice() { return price; }
+    public void setPrice(long price) { this.price = price; }
+
+    public boolean isSoldOut() { return soldOut; }
+    public void setSoldOut(boolean soldOut) { this.soldOut = soldOut; }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.shelkari.hotel.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money is held as a plain {@code long} number of paise and stored as Int64,
+ * so sums are exact both in Java and in Mongo aggregations. The API still
+ * speaks rupees; the nested Jackson classes convert at the JSON boundary.
+ */
+public final class Money {
+
+    public static final long PAISE_PER_RUPEE = 100;
+
+    private Money() {}
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long times(long paise, int quantity) {
+        return Math.multiplyExact(paise, (long) quantity);
+    }
+
+    public static long ofRupees(BigDecimal rupees) {
+        return rupees.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static long ofRupees(double rupees) {
+        return ofRupees(BigDecimal.valueOf(rupees));
+    }
+
+    public static BigDecimal toRupees(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    public static class Serializer extends StdSerializer<Long> {
+        public Serializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public void serialize(Long paise, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeNumber(toRupees(paise));
+        }
+    }
+
+    public static class Deserializer extends StdDeserializer<Long> {
+        public Deserializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            // parse the literal text so 0.1 arrives as exactly ten paise
+            return ofRupees(new BigDecimal(parser.getText().trim()));
+        }
+    }
+}
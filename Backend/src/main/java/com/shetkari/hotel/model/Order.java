@@ -1,9 +1,12 @@
 package com.shelkari.hotel.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 @Document(collection = "orders")
 public class Order {
@@ -11,13 +14,17 @@ public class Order {
     private String id;
     private String guestId;
     private List<OrderItem> items;
-    private Double totalPrice;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long totalPrice;
     private String status = "Pending";
     private Date createdAt = new Date();
+    // ingredient id to quantity taken when the order was placed; deleting the order gives back exactly this
+    private Map<String, Long> reservedStock;
 
     public Order() {}
 
-    public Order(String guestId, List<OrderItem> items, Double totalPrice) {
+    public Order(String guestId, List<OrderItem> items, long totalPrice) {
         this.guestId = guestId;
         this.items = items;
         this.totalPrice = totalPrice;
@@ -33,8 +40,8 @@ public class Order {
     public List<OrderItem> getItems() { return items; }
     public void setItems(List<OrderItem> items) { this.items = items; }
 
-    public Double getTotalPrice() { return totalPrice; }
-    public void setTotalPrice(Double totalPrice) { this.totalPrice = totalPrice; }
+    public long getTotalPrice() { return totalPrice; }
+    public void setTotalPrice(long totalPrice) { this.totalPrice = totalPrice; }
 
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
@@ -42,14 +49,19 @@ public class Order {
     public Date getCreatedAt() { return createdAt; }
     public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
 
+    public Map<String, Long> getReservedStock() { return reservedStock; }
+    public void setReservedStock(Map<String, Long> reservedStock) { this.reservedStock = reservedStock; }
+
     public static class OrderItem {
         private String menuItemId;
         private Integer quantity;
-        private Double price;
+        @JsonSerialize(using = Money.Serializer.class)
+        @JsonDeserialize(using = Money.Deserializer.class)
+        private long price;
 
         public OrderItem() {}
 
-        public OrderItem(String menuItemId, Integer quantity, Double price) {
+        public OrderItem(String menuItemId, Integer quantity, long price) {
             this.menuItemId = menuItemId;
             this.quantity = quantity;
             this.price = price;
@@ -62,7 +74,7 @@ public class Order {
         public Integer getQuantity() { return quantity; }
         public void setQuantity(Integer quantity) { this.quantity = quantity; }
 
-        public Double getPrice() { return price; }
-        public void setPrice(Double price) { this.price = price; }
+        public long getPrice() { return price; }
+        public void setPrice(long price) { this.price = price; }
     }
 }
\ No newline at end of file
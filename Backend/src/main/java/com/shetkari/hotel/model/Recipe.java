@@ -0,0 +1,46 @@
+package com.shelkari.hotel.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.util.List;
+
+// keyed by the menu item it belongs to
+@Document(collection = "recipes")
+public class Recipe {
+    @Id
+    private String menuItemId;
+    private List<RecipeLine> lines;
+
+    public Recipe() {}
+
+    public Recipe(String menuItemId, List<RecipeLine> lines) {
+        this.menuItemId = menuItemId;
+        this.lines = lines;
+    }
+
+    // Getters and Setters
+    public String getMenuItemId() { return menuItemId; }
+    public void setMenuItemId(String menuItemId) { this.menuItemId = menuItemId; }
+
+    public List<RecipeLine> getLines() { return lines; }
+    public void setLines(List<RecipeLine> lines) { this.lines = lines; }
+
+    public static class RecipeLine {
+        private String ingredientId;
+        private long quantity;
+
+        public RecipeLine() {}
+
+        public RecipeLine(String ingredientId, long quantity) {
+            this.ingredientId = ingredientId;
+            this.quantity = quantity;
+        }
+
+        // Getters and Setters
+        public String getIngredientId() { return ingredientId; }
+        public void setIngredientId(String ingredientId) { this.ingredientId = ingredientId; }
+
+        public long getQuantity() { return quantity; }
+        public void setQuantity(long quantity) { this.quantity = quantity; }
+    }
+}
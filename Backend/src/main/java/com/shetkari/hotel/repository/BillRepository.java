@@ -2,8 +2,10 @@ package com.shelkari.hotel.repository;
 
 import com.shelkari.hotel.model.Bill;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import java.util.List;
 import java.util.Optional;
 
 public interface BillRepository extends MongoRepository<Bill, String> {
     Optional<Bill> findByGuestId(String guestId);
+    List<Bill> findByPaymentStatusNot(String paymentStatus);
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.shelkari.hotel.repository;
+
+import com.shelkari.hotel.model.ChangeStreamToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface ChangeStreamTokenRepository extends MongoRepository<ChangeStreamToken, String> {
+}
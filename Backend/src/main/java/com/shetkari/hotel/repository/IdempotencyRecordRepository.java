@@ -0,0 +1,7 @@
+package com.shelkari.hotel.repository;
+
+import com.shelkari.hotel.model.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface IdempotencyRecordRepository extends MongoRepository<IdempotencyRecord, String> {
+}
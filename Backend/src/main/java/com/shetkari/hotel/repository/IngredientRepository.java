@@ -0,0 +1,7 @@
+package com.shelkari.hotel.repository;
+
+import com.shelkari.hotel.model.Ingredient;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface IngredientRepository extends MongoRepository<Ingredient, String> {
+}
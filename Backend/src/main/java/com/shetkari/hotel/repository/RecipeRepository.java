@@ -0,0 +1,7 @@
+package com.shelkari.hotel.repository;
+
+import com.shelkari.hotel.model.Recipe;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface RecipeRepository extends MongoRepository<Recipe, String> {
+}
@@ -0,0 +1,47 @@
+package com.shelkari.hotel.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Starts the journal replayer, the job scheduler and the local file purge
+ * once the application is ready. They are only looked up here, so under lazy
+ * initialisation neither they nor the services they use are created during
+ * refresh, and a run with hotel.background.enabled=false (the CDS training
+ * run, one-off commands) never creates them at all.
+ */
+@Component
+public class BackgroundServices {
+
+    private static final Logger log = LoggerFactory.getLogger(BackgroundServices.class);
+
+    @Autowired
+    private ObjectProvider<OrderJournalReplayer> replayer;
+
+    @Autowired
+    private ObjectProvider<JobScheduler> jobScheduler;
+
+    @Autowired
+    private ObjectProvider<LocalFilePurge> localFilePurge;
+
+    @Value("${hotel.background.enabled:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Background services are disabled on this node");
+            return;
+        }
+        replayer.getObject().start();
+        jobScheduler.getObject().start();
+        // creating it is enough, its @Scheduled method is registered on creation
+        localFilePurge.getIfAvailable();
+    }
+}
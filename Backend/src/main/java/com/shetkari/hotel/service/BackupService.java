@@ -0,0 +1,341 @@
+package com.shelkari.hotel.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.RenameCollectionOptions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Snapshots collections into gzipped, chunked extended-JSON files. Both
+ * directions stream through a cursor or a reader, so memory use does not
+ * depend on collection size. A backup is complete once its manifest exists.
+ * A restore loads each collection into a staging copy and renames it into
+ * place, so afterwards every collection holds exactly what the backup held.
+ */
+@Service
+public class BackupService {
+
+    private static final Logger log = LoggerFactory.getLogger(BackupService.class);
+
+    public static final List<String> COLLECTIONS = List.of("guests", "menuitems", "orders", "bills", "users",
+            "ingredients", "recipes", OrderArchiveJob.ARCHIVE_COLLECTION, DailyRollupJob.COLLECTION);
+
+    private static final String MANIFEST = "manifest.json";
+    private static final Pattern BACKUP_NAME = Pattern.compile("[0-9]{8}-[0-9]{6}");
+    private static final String STAGING_SUFFIX = "-restore";
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final JsonWriterSettings EXTENDED_JSON = JsonWriterSettings.builder()
+            .outputMode(JsonMode.EXTENDED)
+            .build();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${hotel.backup.dir:data/backups}")
+    private String directory;
+
+    @Value("${hotel.backup.chunk-documents:100000}")
+    private long chunkDocuments;
+
+    @Value("${hotel.backup.restore-batch:1000}")
+    private int restoreBatch;
+
+    @Value("${hotel.backup.restore-threads:4}")
+    private int restoreThreads;
+
+    private Path root;
+    private ExecutorService backupExecutor;
+    private final Map<String, String> running = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(directory);
+        Files.createDirectories(root);
+        backupExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "backup-runner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backupExecutor.shutdownNow();
+    }
+
+    public String startBackup() {
+        String name = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        if (running.putIfAbsent(name, "backup") != null || Files.exists(root.resolve(name))) {
+            throw new RuntimeException("A backup named " + name + " already exists");
+        }
+        backupExecutor.execute(() -> {
+            try {
+                backup(name);
+            } catch (IOException | RuntimeException e) {
+                log.error("Backup {} failed", name, e);
+            } finally {
+                running.remove(name);
+            }
+        });
+        return name;
+    }
+
+    // returns false if there is no complete backup with this name
+    public boolean startRestore(String name) throws IOException {
+        Map<String, Object> manifest = readManifest(name).orElse(null);
+        if (manifest == null) {
+            return false;
+        }
+        if (running.putIfAbsent(name, "restore") != null) {
+            throw new RuntimeException("Backup " + name + " is busy");
+        }
+        backupExecutor.execute(() -> {
+            try {
+                restore(name, manifest);
+            } catch (IOException | RuntimeException e) {
+                log.error("Restore of {} failed", name, e);
+            } finally {
+                running.remove(name);
+            }
+        });
+        return true;
+    }
+
+    public List<Map<String, Object>> listBackups() throws IOException {
+        List<Map<String, Object>> backups = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(root)) {
+            for (Path path : listing.filter(Files::isDirectory).sorted(Comparator.reverseOrder()).toList()) {
+                String name = path.getFileName().toString();
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("name", name);
+                entry.put("status", running.getOrDefault(name, readManifest(name).isPresent() ? "complete" : "incomplete"));
+                readManifest(name).ifPresent(manifest -> entry.put("collections", manifest.get("collections")));
+                backups.add(entry);
+            }
+        }
+        return backups;
+    }
+
+    // keeps the newest complete backups; failed ones older than the newest complete one go too
+    public int purgeOldBackups(int keep) throws IOException {
+        List<Path> backups;
+        try (Stream<Path> listing = Files.list(root)) {
+            backups = listing.filter(Files::isDirectory).sorted(Comparator.reverseOrder()).toList();
+        }
+        int kept = 0;
+        int removed = 0;
+        for (Path path : backups) {
+            String name = path.getFileName().toString();
+            if (running.containsKey(name)) {
+                continue;
+            }
+            boolean complete = readManifest(name).isPresent();
+            if (complete && ++kept <= keep) {
+                continue;
+            }
+            if (complete || kept > 0) {
+                deleteRecursively(path);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void backup(String name) throws IOException {
+        Path target = root.resolve(name);
+        Files.createDirectories(target);
+        long started = System.currentTimeMillis();
+
+        Map<String, Object> collections = new LinkedHashMap<>();
+        for (String collection : COLLECTIONS) {
+            collections.put(collection, dumpCollection(collection, target));
+        }
+
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("name", name);
+        manifest.put("createdAt", new Date(started));
+        manifest.put("collections", collections);
+        // written last and atomically: a backup without a manifest is never restored
+        Path temp = Files.createTempFile(target, "manifest", ".tmp");
+        objectMapper.writeValue(temp.toFile(), manifest);
+        Files.move(temp, target.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE);
+        log.info("Backup {} finished in {} ms", name, System.currentTimeMillis() - started);
+    }
+
+    private Map<String, Object> dumpCollection(String collection, Path target) throws IOException {
+        List<String> chunks = new ArrayList<>();
+        long count = 0;
+        Writer writer = null;
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(collection).find().batchSize(1000).iterator()) {
+            while (cursor.hasNext()) {
+                if (count % chunkDocuments == 0) {
+                    if (writer != null) {
+                        writer.close();
+                    }
+                    String chunk = String.format("%s-%05d.jsonl.gz", collection, chunks.size() + 1);
+                    writer = openChunk(target.resolve(chunk));
+                    chunks.add(chunk);
+                }
+                writer.write(cursor.next().toJson(EXTENDED_JSON));
+                writer.write('\n');
+                count++;
+            }
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("documents", count);
+        summary.put("chunks", chunks);
+        return summary;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void restore(String name, Map<String, Object> manifest) throws IOException {
+        Path source = root.resolve(name);
+        Map<String, Object> collections = (Map<String, Object>) manifest.get("collections");
+        ExecutorService workers = Executors.newFixedThreadPool(restoreThreads);
+        AtomicLong inserted = new AtomicLong();
+        long started = System.currentTimeMillis();
+
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (Map.Entry<String, Object> entry : collections.entrySet()) {
+                // a staging copy left by an earlier failed restore is started over
+                String staging = entry.getKey() + STAGING_SUFFIX;
+                mongoTemplate.dropCollection(staging);
+                MongoCollection<Document> collection = mongoTemplate.createCollection(staging);
+                for (String chunk : (List<String>) ((Map<String, Object>) entry.getValue()).get("chunks")) {
+                    Path file = source.resolve(chunk);
+                    tasks.add(workers.submit(() -> {
+                        inserted.addAndGet(restoreChunk(collection, file));
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Restore of " + name + " was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Restore of " + name + " failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        // only once every chunk is in, so a failed restore leaves the live collections untouched
+        for (String collection : collections.keySet()) {
+            swapIn(collection + STAGING_SUFFIX, collection);
+        }
+        log.info("Restore of {} inserted {} document(s) in {} ms", name, inserted.get(),
+                System.currentTimeMillis() - started);
+    }
+
+    private long restoreChunk(MongoCollection<Document> collection, Path file) throws IOException {
+        long inserted = 0;
+        List<Document> batch = new ArrayList<>(restoreBatch);
+        try (BufferedReader reader = openReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                batch.add(Document.parse(line));
+                if (batch.size() == restoreBatch) {
+                    collection.insertMany(batch);
+                    inserted += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            collection.insertMany(batch);
+            inserted += batch.size();
+        }
+        return inserted;
+    }
+
+    // the live collection's indexes (unique, TTL) are rebuilt on the copy first, as the rename drops them
+    private void swapIn(String staging, String collection) {
+        List<Document> indexes = new ArrayList<>();
+        for (Document index : mongoTemplate.getCollection(collection).listIndexes()) {
+            if (!"_id_".equals(index.getString("name"))) {
+                index.remove("v");
+                index.remove("ns");
+                indexes.add(index);
+            }
+        }
+        if (!indexes.isEmpty()) {
+            mongoTemplate.executeCommand(new Document("createIndexes", staging).append("indexes", indexes));
+        }
+        String database = mongoTemplate.getDb().getName();
+        mongoTemplate.getCollection(staging).renameCollection(new MongoNamespace(database, collection),
+                new RenameCollectionOptions().dropTarget(true));
+    }
+
+    private Optional<Map<String, Object>> readManifest(String name) throws IOException {
+        if (!BACKUP_NAME.matcher(name).matches()) {
+            return Optional.empty();
+        }
+        Path manifest = root.resolve(name).resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return Optional.empty();
+        }
+        return Optional.of(objectMapper.readValue(manifest.toFile(), new TypeReference<Map<String, Object>>() {}));
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> tree = Files.walk(directory)) {
+            for (Path path : tree.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static Writer openChunk(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        return new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES), StandardCharsets.UTF_8),
+                BUFFER_BYTES);
+    }
+
+    private static BufferedReader openReader(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        return new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Channels.newInputStream(channel), BUFFER_BYTES), StandardCharsets.UTF_8),
+                BUFFER_BYTES);
+    }
+}
@@ -0,0 +1,143 @@
+package com.shelkari.hotel.service;
+
+import com.shelkari.hotel.model.Bill;
+import com.shelkari.hotel.model.Money;
+import com.shelkari.hotel.model.Order;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Recomputes the food charges of every open bill from its guest's orders and
+ * corrects bills that drifted, e.g. after a partial failure while deleting an
+ * order. Paid bills are settled and left alone, which also keeps archived
+ * orders from looking like missing ones.
+ */
+@Component
+public class BillReconciliationJob implements ScheduledJob {
+
+    private static final Logger log = LoggerFactory.getLogger(BillReconciliationJob.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private BillService billService;
+
+    @Value("${hotel.jobs.reconcile-bills.fixed-delay:1h}")
+    private Duration fixedDelay;
+
+    @Value("${hotel.jobs.reconcile-bills.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${hotel.jobs.reconcile-bills.settle-ms:2000}")
+    private long settleMs;
+
+    @Override
+    public String name() {
+        return "reconcile-bills";
+    }
+
+    @Override
+    public JobTrigger trigger() {
+        return JobTrigger.fixedDelay(fixedDelay);
+    }
+
+    // chunks walk open bills in _id order; the checkpoint is the last bill id checked
+    @Override
+    public void run(JobContext context) {
+        String after = context.getCheckpoint();
+        long backlog = mongoTemplate.count(openBills(after), Bill.class);
+        context.setBacklog(backlog);
+
+        while (context.isActive()) {
+            Query chunk = openBills(after).with(Sort.by("_id")).limit(chunkSize);
+            List<Bill> bills = mongoTemplate.find(chunk, Bill.class);
+            if (bills.isEmpty()) {
+                return;
+            }
+
+            Map<String, Long> orderTotals = orderTotals(bills);
+            List<Bill> drifted = new ArrayList<>();
+            for (Bill bill : bills) {
+                if (bill.getFoodCharges() != orderTotals.getOrDefault(bill.getGuestId(), 0L)) {
+                    drifted.add(bill);
+                }
+            }
+            if (!drifted.isEmpty() && !correct(drifted, orderTotals)) {
+                return;
+            }
+
+            after = bills.get(bills.size() - 1).getId();
+            backlog = Math.max(0, backlog - bills.size());
+            context.setBacklog(backlog);
+            if (!context.saveCheckpoint(after)) {
+                return;
+            }
+        }
+    }
+
+    // an order is added to its bill just before the order itself is saved, so a mismatch
+    // only counts as drift if it is still there, unchanged, after a short pause
+    private boolean correct(List<Bill> drifted, Map<String, Long> firstTotals) {
+        try {
+            Thread.sleep(settleMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        Map<String, Long> secondTotals = orderTotals(drifted);
+        for (Bill bill : drifted) {
+            long total = secondTotals.getOrDefault(bill.getGuestId(), 0L);
+            if (total != firstTotals.getOrDefault(bill.getGuestId(), 0L)) {
+                continue;
+            }
+            // only applies if the bill has not moved since it was read
+            Query unchanged = Query.query(Criteria.where("_id").is(bill.getId())
+                    .and("foodCharges").is(bill.getFoodCharges())
+                    .and("roomCharges").is(bill.getRoomCharges()));
+            Update update = new Update()
+                    .set("foodCharges", total)
+                    .set("totalAmount", Money.add(bill.getRoomCharges(), total));
+            if (mongoTemplate.updateFirst(unchanged, update, Bill.class).getModifiedCount() > 0) {
+                billService.evict(bill.getGuestId());
+                log.warn("Corrected food charges of bill {} from {} to {}", bill.getId(),
+                        Money.toRupees(bill.getFoodCharges()), Money.toRupees(total));
+            }
+        }
+        return true;
+    }
+
+    private Map<String, Long> orderTotals(List<Bill> bills) {
+        List<String> guestIds = bills.stream().map(Bill::getGuestId).toList();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("guestId").in(guestIds)),
+                Aggregation.group("guestId").sum("totalPrice").as("total"));
+
+        Map<String, Long> totals = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, Order.class, Document.class)) {
+            totals.put(row.getString("_id"), ((Number) row.get("total")).longValue());
+        }
+        return totals;
+    }
+
+    private static Query openBills(String after) {
+        Criteria criteria = Criteria.where("paymentStatus").ne("Paid");
+        if (after != null) {
+            criteria = criteria.and("_id").gt(after);
+        }
+        return Query.query(criteria);
+    }
+}
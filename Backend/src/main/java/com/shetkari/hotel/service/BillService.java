@@ -2,24 +2,133 @@ package com.shelkari.hotel.service;
 
 import com.shelkari.hotel.model.Bill;
 import com.shelkari.hotel.repository.BillRepository;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
-public class BillService {
+public class BillService implements ChangeStreamSubscriber {
 
     @Autowired
     private BillRepository billRepository;
 
+    @Autowired
+    private MongoConverter mongoConverter;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    // only an open change stream keeps the cache in step with other instances
+    private volatile boolean streamOpen;
+    private final Map<String, Bill> billsByGuest = new ConcurrentHashMap<>();
+    // bumped on every change so a lookup racing with an event is not cached stale
+    private final AtomicLong generation = new AtomicLong();
+
+    // one bill per guest: concurrent journal replays upsert on guestId and rely on this to not create two
+    @PostConstruct
+    public void ensureGuestIndex() {
+        mongoTemplate.indexOps(Bill.class).ensureIndex(new Index().on("guestId", Sort.Direction.ASC).unique());
+    }
+
     public Optional<Bill> getBillByGuestId(String guestId) {
-        return billRepository.findByGuestId(guestId);
+        Bill cached = billsByGuest.get(guestId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (!streamOpen) {
+            return billRepository.findByGuestId(guestId);
+        }
+        long loadedAt = generation.get();
+        Optional<Bill> bill = billRepository.findByGuestId(guestId);
+        bill.ifPresent(found -> {
+            synchronized (this) {
+                if (streamOpen && generation.get() == loadedAt) {
+                    billsByGuest.put(guestId, found);
+                }
+            }
+        });
+        return bill;
+    }
+
+    public List<Bill> getOpenBills() {
+        return billRepository.findByPaymentStatusNot("Paid");
     }
 
     public Bill updateBillPaymentStatus(String id, String paymentStatus) {
-        Bill bill = billRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Bill not found"));
-        bill.setPaymentStatus(paymentStatus);
-        return billRepository.save(bill);
+        // only the status is written, so charges added concurrently by the journal replayer are kept
+        Bill saved = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(id)),
+                new Update().set("paymentStatus", paymentStatus),
+                FindAndModifyOptions.options().returnNew(true), Bill.class);
+        if (saved == null) {
+            throw new RuntimeException("Bill not found");
+        }
+        // renders the invoice once the bill is paid
+        evict(saved.getGuestId());
+        return saved;
+    }
+
+    // called after every write to a guest's bill or orders
+    public void evict(String guestId) {
+        synchronized (this) {
+            generation.incrementAndGet();
+            billsByGuest.remove(guestId);
+        }
+        invoiceService.refreshForGuest(guestId);
+    }
+
+    @Override
+    public String collection() {
+        return "bills";
+    }
+
+    @Override
+    public synchronized void onChange(ChangeStreamDocument<Document> change) {
+        generation.incrementAndGet();
+        Document document = change.getFullDocument();
+        if (document != null) {
+            Bill bill = mongoConverter.read(Bill.class, document);
+            billsByGuest.put(bill.getGuestId(), bill);
+        } else if (change.getDocumentKey() != null) {
+            String id = DocumentCache.idString(change.getDocumentKey().get("_id"));
+            billsByGuest.values().removeIf(bill -> id.equals(bill.getId()));
+        } else {
+            billsByGuest.clear();
+        }
+    }
+
+    @Override
+    public synchronized void onResync() {
+        generation.incrementAndGet();
+        billsByGuest.clear();
+    }
+
+    @Override
+    public void onStreamOpened() {
+        onResync();
+        streamOpen = true;
+    }
+
+    @Override
+    public void onStreamClosed() {
+        streamOpen = false;
+        onResync();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,127 @@
+package com.shelkari.hotel.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shelkari.hotel.model.MenuItem;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Everything a screen needs at load time in one response. The sections are
+ * read concurrently on virtual threads, so the request takes as long as the
+ * slowest read rather than the sum of them.
+ */
+@Service
+public class BootstrapService {
+
+    private static final TypeReference<Map<String, Object>> FIELDS = new TypeReference<>() {};
+
+    private static final Map<String, List<String>> SCREENS = Map.of(
+            "order-placement", List.of("guests", "menu"),
+            "billing", List.of("guests", "bills"));
+
+    @Autowired
+    private GuestService guestService;
+
+    @Autowired
+    private MenuItemService menuItemService;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public boolean isKnownScreen(String screen) {
+        return SCREENS.containsKey(screen);
+    }
+
+    /**
+     * {@code fields} holds "section.field" entries; a section named in it is
+     * trimmed to those fields plus its id, other sections are returned whole.
+     */
+    public Map<String, Object> load(String screen, Set<String> fields) {
+        List<String> sections = SCREENS.get(screen);
+        if (sections == null) {
+            throw new RuntimeException("Unknown screen: " + screen);
+        }
+
+        Map<String, CompletableFuture<List<?>>> pending = new LinkedHashMap<>();
+        for (String section : sections) {
+            pending.put(section, CompletableFuture.supplyAsync(reader(section), executor));
+        }
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("screen", screen);
+        try {
+            for (Map.Entry<String, CompletableFuture<List<?>>> section : pending.entrySet()) {
+                payload.put(section.getKey(), select(section.getKey(), section.getValue().join(), fields));
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return payload;
+    }
+
+    private Supplier<List<?>> reader(String section) {
+        return switch (section) {
+            case "guests" -> () -> guestService.getAllGuests().stream()
+                    .filter(guest -> !"Paid".equalsIgnoreCase(guest.getBillStatus()))
+                    .toList();
+            // sold-out items stay listed, flagged, so the screen can show them disabled;
+            // the flags go on copies because the cached items are shared between requests
+            case "menu" -> () -> {
+                List<MenuItem> menuItems = new ArrayList<>();
+                for (MenuItem menuItem : menuItemService.getAllMenuItems()) {
+                    MenuItem view = new MenuItem(menuItem.getName(), menuItem.getDescription(),
+                            menuItem.getCategory(), menuItem.getPrice());
+                    view.setId(menuItem.getId());
+                    view.setSoldOut(inventoryService.isSoldOut(menuItem.getId()));
+                    menuItems.add(view);
+                }
+                return menuItems;
+            };
+            case "bills" -> billService::getOpenBills;
+            default -> throw new IllegalArgumentException(section);
+        };
+    }
+
+    private List<?> select(String section, List<?> rows, Set<String> fields) {
+        String prefix = section + ".";
+        Set<String> keep = new HashSet<>();
+        for (String field : fields) {
+            if (field.startsWith(prefix)) {
+                keep.add(field.substring(prefix.length()));
+            }
+        }
+        if (keep.isEmpty()) {
+            return rows;
+        }
+        keep.add("id");
+
+        List<Map<String, Object>> trimmed = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Map<String, Object> values = objectMapper.convertValue(row, FIELDS);
+            values.keySet().retainAll(keep);
+            trimmed.add(values);
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,184 @@
+package com.shelkari.hotel.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.shelkari.hotel.model.ChangeStreamToken;
+import com.shelkari.hotel.repository.ChangeStreamTokenRepository;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Tails a MongoDB change stream per cached collection and fans every event
+ * out to the local subscribers, so caches stay coherent across replicas.
+ * Subscribers are told when the stream opens and closes and only cache while
+ * it is open, so an instance whose stream cannot open (a standalone server
+ * rejects change streams) reads straight from Mongo instead of going stale.
+ * Change streams need a replica set; a single-node one is enough locally.
+ */
+@Service
+@ConditionalOnProperty(name = "hotel.change-streams.enabled", havingValue = "true")
+public class ChangeStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeStreamService.class);
+
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final long RETRY_DELAY_MS = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ChangeStreamTokenRepository tokenRepository;
+
+    @Autowired
+    private List<ChangeStreamSubscriber> subscribers;
+
+    @Value("${hotel.node-id:${HOSTNAME:local}}")
+    private String nodeId;
+
+    @Value("${hotel.change-streams.token-save-interval-ms:1000}")
+    private long tokenSaveIntervalMs;
+
+    private final List<Thread> watchers = new ArrayList<>();
+    private volatile boolean running;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        Map<String, List<ChangeStreamSubscriber>> byCollection = subscribers.stream()
+                .collect(Collectors.groupingBy(ChangeStreamSubscriber::collection));
+
+        byCollection.forEach((collection, collectionSubscribers) -> {
+            Thread watcher = new Thread(() -> watch(collection, collectionSubscribers), "change-stream-" + collection);
+            watcher.setDaemon(true);
+            watcher.start();
+            watchers.add(watcher);
+        });
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread watcher : watchers) {
+            watcher.join(2000);
+        }
+    }
+
+    private void watch(String collection, List<ChangeStreamSubscriber> collectionSubscribers) {
+        String tokenId = nodeId + ":" + collection;
+        long retryDelay = RETRY_DELAY_MS;
+
+        while (running) {
+            try {
+                BsonDocument resumeToken = tokenRepository.findById(tokenId)
+                        .map(saved -> new BsonDocument("_data", new BsonString(saved.getToken())))
+                        .orElse(null);
+                ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(collection)
+                        .watch()
+                        .fullDocument(FullDocument.UPDATE_LOOKUP);
+                if (resumeToken != null) {
+                    stream = stream.resumeAfter(resumeToken);
+                }
+                tail(stream, tokenId, resumeToken, collectionSubscribers);
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    log.warn("Change stream history for {} is gone, resyncing local caches", collection);
+                    tokenRepository.deleteById(tokenId);
+                    collectionSubscribers.forEach(ChangeStreamSubscriber::onResync);
+                    continue;
+                }
+                retryDelay = backoff(collection, e, retryDelay);
+            } catch (MongoException | DataAccessException e) {
+                retryDelay = backoff(collection, e, retryDelay);
+            } catch (RuntimeException e) {
+                // this thread is the only thing keeping the caches coherent, so it must never die
+                log.error("Change stream on {} failed unexpectedly", collection, e);
+                collectionSubscribers.forEach(ChangeStreamSubscriber::onResync);
+                retryDelay = backoff(collection, e, retryDelay);
+            }
+        }
+    }
+
+    private void tail(ChangeStreamIterable<Document> stream, String tokenId, BsonDocument savedToken,
+                      List<ChangeStreamSubscriber> collectionSubscribers) {
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            collectionSubscribers.forEach(ChangeStreamSubscriber::onStreamOpened);
+            try {
+                follow(cursor, tokenId, savedToken, collectionSubscribers);
+            } finally {
+                collectionSubscribers.forEach(ChangeStreamSubscriber::onStreamClosed);
+            }
+        }
+    }
+
+    private void follow(MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor, String tokenId,
+                        BsonDocument savedToken, List<ChangeStreamSubscriber> collectionSubscribers) {
+        long lastSave = System.currentTimeMillis();
+
+        while (running) {
+            ChangeStreamDocument<Document> change = cursor.tryNext();
+            if (change != null && change.getOperationType() == OperationType.INVALIDATE) {
+                // the stream is closed for good, and resuming after its token would fail the same way
+                log.warn("Change stream on {} was invalidated, resyncing local caches", tokenId);
+                tokenRepository.deleteById(tokenId);
+                collectionSubscribers.forEach(ChangeStreamSubscriber::onResync);
+                return;
+            }
+            if (change != null) {
+                for (ChangeStreamSubscriber subscriber : collectionSubscribers) {
+                    dispatch(subscriber, change);
+                }
+            }
+
+            BsonDocument token = cursor.getResumeToken();
+            long now = System.currentTimeMillis();
+            if (token != null && !token.equals(savedToken) && now - lastSave >= tokenSaveIntervalMs) {
+                tokenRepository.save(new ChangeStreamToken(tokenId, token.getString("_data").getValue()));
+                savedToken = token;
+                lastSave = now;
+            }
+        }
+    }
+
+    // an event one subscriber cannot apply must not stop the others, or the stream, from moving on
+    private void dispatch(ChangeStreamSubscriber subscriber, ChangeStreamDocument<Document> change) {
+        try {
+            subscriber.onChange(change);
+        } catch (RuntimeException e) {
+            log.error("{} could not apply a {} change, resyncing it", subscriber.getClass().getSimpleName(),
+                    change.getOperationType(), e);
+            subscriber.onResync();
+        }
+    }
+
+    // the stream resumes from the last saved token, so nothing is missed while we wait
+    private long backoff(String collection, RuntimeException e, long delay) {
+        log.warn("Change stream on {} failed, retrying in {} ms: {}", collection, delay, e.getMessage());
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+        return Math.min(delay * 2, 30000);
+    }
+}
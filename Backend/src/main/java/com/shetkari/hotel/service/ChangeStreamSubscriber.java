@@ -0,0 +1,20 @@
+package com.shelkari.hotel.service;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.Document;
+
+public interface ChangeStreamSubscriber {
+
+    String collection();
+
+    void onChange(ChangeStreamDocument<Document> change);
+
+    // called when changes may have been missed and local state must be rebuilt
+    void onResync();
+
+    // every change from now on reaches onChange, so local state may be kept
+    void onStreamOpened();
+
+    // nothing reports other instances' writes until the stream opens again, so local state must be dropped
+    void onStreamClosed();
+}
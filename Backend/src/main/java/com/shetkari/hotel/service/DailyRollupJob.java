@@ -0,0 +1,114 @@
+package com.shelkari.hotel.service;
+
+import com.shelkari.hotel.model.Order;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+/**
+ * Writes one document per finished day to daily_rollups with that day's
+ * order count, revenue and items sold. The newest rollup is the high-water
+ * mark, so missed nights are caught up in order and days already written are
+ * never recomputed. Days that archive-orders may already have thinned out
+ * are never rolled up.
+ */
+@Component
+public class DailyRollupJob implements ScheduledJob {
+
+    public static final String COLLECTION = "daily_rollups";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${hotel.jobs.daily-rollup.cron:0 5 0 * * *}")
+    private String cron;
+
+    @Value("${hotel.jobs.archive-orders.retention-days:90}")
+    private int retentionDays;
+
+    @Override
+    public String name() {
+        return "daily-rollup";
+    }
+
+    @Override
+    public JobTrigger trigger() {
+        return JobTrigger.cron(cron);
+    }
+
+    @Override
+    public void run(JobContext context) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate today = LocalDate.now(zone);
+        // the archive cutoff falls somewhere inside this day, so only the days after it are whole
+        LocalDate oldestWhole = today.minusDays(retentionDays).plusDays(1);
+
+        LocalDate lastRolledUp = lastRolledUpDay();
+        LocalDate day = lastRolledUp != null ? lastRolledUp.plusDays(1) : firstOrderDay(zone);
+        if (day == null) {
+            return;
+        }
+        if (day.isBefore(oldestWhole)) {
+            day = oldestWhole;
+        }
+
+        while (day.isBefore(today) && context.isActive()) {
+            context.setBacklog(ChronoUnit.DAYS.between(day, today));
+            rollUp(day, zone);
+            if (!context.saveCheckpoint(day.toString())) {
+                return;
+            }
+            day = day.plusDays(1);
+        }
+        context.setBacklog(0);
+    }
+
+    private void rollUp(LocalDate day, ZoneId zone) {
+        Date start = Date.from(day.atStartOfDay(zone).toInstant());
+        Date end = Date.from(day.plusDays(1).atStartOfDay(zone).toInstant());
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("createdAt").gte(start).lt(end)),
+                Aggregation.group()
+                        .count().as("orders")
+                        .sum("totalPrice").as("revenue")
+                        .sum(ArithmeticOperators.Sum.sumOf("items.quantity")).as("itemsSold"));
+        Document totals = mongoTemplate.aggregate(aggregation, Order.class, Document.class).getUniqueMappedResult();
+
+        Update update = new Update()
+                .set("date", start)
+                .set("orders", totals != null ? ((Number) totals.get("orders")).longValue() : 0L)
+                .set("revenue", totals != null ? ((Number) totals.get("revenue")).longValue() : 0L)
+                .set("itemsSold", totals != null ? ((Number) totals.get("itemsSold")).longValue() : 0L)
+                .set("generatedAt", new Date());
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(day.toString())), update, COLLECTION);
+    }
+
+    // rollup ids are ISO dates, so the greatest id is the newest day
+    private LocalDate lastRolledUpDay() {
+        Query newest = new Query().with(Sort.by(Sort.Direction.DESC, "_id")).limit(1);
+        Document rollup = mongoTemplate.findOne(newest, Document.class, COLLECTION);
+        return rollup != null ? LocalDate.parse(rollup.getString("_id")) : null;
+    }
+
+    private LocalDate firstOrderDay(ZoneId zone) {
+        Query first = new Query().with(Sort.by("createdAt")).limit(1);
+        first.fields().include("createdAt");
+        Order order = mongoTemplate.findOne(first, Order.class);
+        if (order == null || order.getCreatedAt() == null) {
+            return null;
+        }
+        return order.getCreatedAt().toInstant().atZone(zone).toLocalDate();
+    }
+}
@@ -1,20 +1,37 @@
 package com.shelkari.hotel.service;
 
+import com.shelkari.hotel.model.Money;
 import com.shelkari.hotel.model.Order;
 import com.shelkari.hotel.repository.OrderRepository;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.stereotype.Service;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
-public class DashboardService {
+public class DashboardService implements ChangeStreamSubscriber {
 
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // orders placed on other instances only invalidate the stats through an open change stream
+    private volatile boolean streamOpen;
+
+    private volatile CachedStats cachedStats;
+    private final AtomicLong generation = new AtomicLong();
+
+    private record CachedStats(Date day, Map<String, Object> stats) {}
+
     public Map<String, Object> getDashboardStats() {
         Calendar calendar = Calendar.getInstance();
         calendar.set(Calendar.HOUR_OF_DAY, 0);
@@ -26,20 +43,70 @@ public class DashboardService {
         calendar.add(Calendar.DATE, 1);
         Date tomorrow = calendar.getTime();
 
+        CachedStats cached = cachedStats;
+        if (cached != null && cached.day().equals(today)) {
+            return cached.stats();
+        }
+        long computedAt = generation.get();
+
         Long dailyOrders = orderRepository.findByCreatedAtBetween(today, tomorrow).stream().count();
         Long pendingOrders = orderRepository.findByStatus("Pending").stream().count();
         Long preparingOrders = orderRepository.findByStatus("Preparing").stream().count();
 
-        Double totalEarnings = orderRepository.findAll().stream()
-                .mapToDouble(Order::getTotalPrice)
-                .sum();
+        // totals are Int64 paise, so the server-side sum is exact; archived orders still count
+        long totalEarnings = Money.add(sumTotalPrice(mongoTemplate.getCollectionName(Order.class)),
+                sumTotalPrice(OrderArchiveJob.ARCHIVE_COLLECTION));
 
         Map<String, Object> stats = new HashMap<>();
         stats.put("dailyOrders", dailyOrders);
         stats.put("pendingOrders", pendingOrders);
         stats.put("preparingOrders", preparingOrders);
-        stats.put("totalEarnings", totalEarnings);
+        stats.put("totalEarnings", Money.toRupees(totalEarnings));
 
+        synchronized (this) {
+            if (streamOpen && generation.get() == computedAt) {
+                cachedStats = new CachedStats(today, stats);
+            }
+        }
         return stats;
     }
+
+    private long sumTotalPrice(String collection) {
+        Document earnings = mongoTemplate.aggregate(
+                Aggregation.newAggregation(Aggregation.group().sum("totalPrice").as("total")),
+                collection, Document.class).getUniqueMappedResult();
+        return earnings != null ? ((Number) earnings.get("total")).longValue() : 0L;
+    }
+
+    public synchronized void invalidate() {
+        generation.incrementAndGet();
+        cachedStats = null;
+    }
+
+    @Override
+    public String collection() {
+        return "orders";
+    }
+
+    @Override
+    public void onChange(ChangeStreamDocument<Document> change) {
+        invalidate();
+    }
+
+    @Override
+    public void onResync() {
+        invalidate();
+    }
+
+    @Override
+    public void onStreamOpened() {
+        invalidate();
+        streamOpen = true;
+    }
+
+    @Override
+    public void onStreamClosed() {
+        streamOpen = false;
+        invalidate();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.shelkari.hotel.service;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Lazily loaded, id-keyed copy of a whole collection that is kept current by
+ * local writes and by change stream events from other instances. Nothing else
+ * tells this instance about other instances' writes, so the cache is only
+ * filled while the collection's stream is open, and only by loads started
+ * after it opened; until then, and once it closes, every read goes to Mongo.
+ */
+public class DocumentCache<T> {
+
+    private final Class<T> type;
+    private final Function<T, String> idOf;
+    private final Supplier<List<T>> loader;
+    private final MongoConverter converter;
+
+    private volatile boolean live;
+    private volatile ConcurrentSkipListMap<String, T> entries;
+    // bumped on every change so a load racing with an event is not published stale
+    private final AtomicLong generation = new AtomicLong();
+
+    public DocumentCache(Class<T> type, Function<T, String> idOf, Supplier<List<T>> loader, MongoConverter converter) {
+        this.type = type;
+        this.idOf = idOf;
+        this.loader = loader;
+        this.converter = converter;
+    }
+
+    public List<T> all() {
+        ConcurrentSkipListMap<String, T> current = entries;
+        if (current != null) {
+            return new ArrayList<>(current.values());
+        }
+
+        if (!live) {
+            return loader.get();
+        }
+        long loadedAt = generation.get();
+        List<T> loaded = loader.get();
+        ConcurrentSkipListMap<String, T> fresh = new ConcurrentSkipListMap<>();
+        for (T item : loaded) {
+            fresh.put(idOf.apply(item), item);
+        }
+        synchronized (this) {
+            if (live && generation.get() == loadedAt) {
+                entries = fresh;
+            }
+        }
+        return loaded;
+    }
+
+    public Optional<T> get(String id) {
+        ConcurrentSkipListMap<String, T> current = entries;
+        return current == null ? Optional.empty() : Optional.ofNullable(current.get(id));
+    }
+
+    public boolean isLoaded() {
+        return entries != null;
+    }
+
+    public synchronized void put(T item) {
+        generation.incrementAndGet();
+        ConcurrentSkipListMap<String, T> current = entries;
+        if (current != null) {
+            current.put(idOf.apply(item), item);
+        }
+    }
+
+    public synchronized void remove(String id) {
+        generation.incrementAndGet();
+        ConcurrentSkipListMap<String, T> current = entries;
+        if (current != null) {
+            current.remove(id);
+        }
+    }
+
+    public synchronized void invalidate() {
+        generation.incrementAndGet();
+        entries = null;
+    }
+
+    // every change from now on reaches apply, so loads started after this may be kept
+    public synchronized void open() {
+        generation.incrementAndGet();
+        live = true;
+    }
+
+    public synchronized void close() {
+        live = false;
+        invalidate();
+    }
+
+    public void apply(ChangeStreamDocument<Document> change) {
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                Document document = change.getFullDocument();
+                if (document != null) {
+                    put(converter.read(type, document));
+                } else if (change.getDocumentKey() != null) {
+                    remove(idString(change.getDocumentKey().get("_id")));
+                }
+            }
+            case DELETE -> remove(idString(change.getDocumentKey().get("_id")));
+            default -> invalidate();
+        }
+    }
+
+    static String idString(BsonValue id) {
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+}
@@ -0,0 +1,136 @@
+package com.shelkari.hotel.service;
+
+import com.shelkari.hotel.model.Money;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
+import org.springframework.data.mongodb.core.aggregation.UnionWithOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * CSV exports of orders and bills for a date range. Rows are read from a
+ * cursor and written straight to the caller's stream, so an export of any
+ * size holds only one batch of documents at a time.
+ */
+@Service
+public class ExportService {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final Pattern NUMBER = Pattern.compile("-?[0-9]+(\\.[0-9]+)?");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // [from, to); archived orders are included, so older ranges stay complete
+    public void writeOrders(Date from, Date to, OutputStream out) throws IOException {
+        Criteria inRange = Criteria.where("createdAt").gte(from).lt(to);
+        ProjectionOperation columns = Aggregation.project("guestId", "items", "totalPrice", "status", "createdAt");
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(inRange),
+                columns,
+                UnionWithOperation.unionWith(OrderArchiveJob.ARCHIVE_COLLECTION)
+                        .pipeline(Aggregation.match(inRange), columns),
+                Aggregation.sort(Sort.by("createdAt")))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).cursorBatchSize(BATCH_SIZE).build());
+
+        Writer writer = writer(out);
+        SimpleDateFormat timestamp = timestampFormat();
+        writer.write("orderId,guestId,createdAt,status,items,totalPrice\n");
+        try (Stream<Document> orders = mongoTemplate.aggregateStream(aggregation, "orders", Document.class)) {
+            for (Document order : (Iterable<Document>) orders::iterator) {
+                List<?> items = order.getList("items", Object.class);
+                Date createdAt = order.getDate("createdAt");
+                row(writer,
+                        idOf(order),
+                        order.getString("guestId"),
+                        createdAt != null ? timestamp.format(createdAt) : "",
+                        order.getString("status"),
+                        String.valueOf(items != null ? items.size() : 0),
+                        rupees(order.get("totalPrice")));
+            }
+        }
+        writer.flush();
+    }
+
+    // bills carry no date of their own, so the range applies to the creation time in their ObjectId
+    public void writeBills(Date from, Date to, OutputStream out) throws IOException {
+        Query query = Query.query(Criteria.where("_id").gte(new ObjectId(from)).lt(new ObjectId(to)))
+                .with(Sort.by("_id"))
+                .cursorBatchSize(BATCH_SIZE);
+        query.fields().include("guestId").include("roomCharges").include("foodCharges")
+                .include("totalAmount").include("paymentStatus");
+
+        Writer writer = writer(out);
+        SimpleDateFormat timestamp = timestampFormat();
+        writer.write("billId,guestId,createdAt,paymentStatus,roomCharges,foodCharges,totalAmount\n");
+        try (Stream<Document> bills = mongoTemplate.stream(query, Document.class, "bills")) {
+            for (Document bill : (Iterable<Document>) bills::iterator) {
+                Object id = bill.get("_id");
+                row(writer,
+                        idOf(bill),
+                        bill.getString("guestId"),
+                        id instanceof ObjectId objectId ? timestamp.format(objectId.getDate()) : "",
+                        bill.getString("paymentStatus"),
+                        rupees(bill.get("roomCharges")),
+                        rupees(bill.get("foodCharges")),
+                        rupees(bill.get("totalAmount")));
+            }
+        }
+        writer.flush();
+    }
+
+    private static void row(Writer writer, String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escape(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        // a leading formula character would be evaluated by spreadsheet software
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0 && !NUMBER.matcher(value).matches()) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String idOf(Document document) {
+        Object id = document.get("_id");
+        return id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+    }
+
+    private static String rupees(Object paise) {
+        return Money.toRupees(paise instanceof Number number ? number.longValue() : 0L).toPlainString();
+    }
+
+    private static Writer writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private static SimpleDateFormat timestampFormat() {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    }
+}
@@ -2,27 +2,46 @@ package com.shelkari.hotel.service;
 
 import com.shelkari.hotel.model.Guest;
 import com.shelkari.hotel.repository.GuestRepository;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Optional;
 
 @Service
-public class GuestService {
+public class GuestService implements ChangeStreamSubscriber {
 
     @Autowired
     private GuestRepository guestRepository;
 
+    @Autowired
+    private MongoConverter mongoConverter;
+
+    private DocumentCache<Guest> guestCache;
+
+    @PostConstruct
+    public void initCache() {
+        guestCache = new DocumentCache<>(Guest.class, Guest::getId, guestRepository::findAll, mongoConverter);
+    }
+
     public List<Guest> getAllGuests() {
-        return guestRepository.findAll();
+        return guestCache.all();
     }
 
     public Optional<Guest> getGuestById(String id) {
+        if (guestCache.isLoaded()) {
+            return guestCache.get(id);
+        }
         return guestRepository.findById(id);
     }
 
     public Guest createGuest(Guest guest) {
-        return guestRepository.save(guest);
+        Guest saved = guestRepository.save(guest);
+        guestCache.put(saved);
+        return saved;
     }
 
     public Guest updateGuest(String id, Guest guestDetails) {
@@ -35,12 +54,40 @@ public class GuestService {
         if (guestDetails.getCheckInDate() != null) guest.setCheckInDate(guestDetails.getCheckInDate());
         if (guestDetails.getBillStatus() != null) guest.setBillStatus(guestDetails.getBillStatus());
 
-        return guestRepository.save(guest);
+        Guest saved = guestRepository.save(guest);
+        guestCache.put(saved);
+        return saved;
     }
 
     public void deleteGuest(String id) {
         Guest guest = guestRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Guest not found"));
         guestRepository.delete(guest);
+        guestCache.remove(id);
+    }
+
+    @Override
+    public String collection() {
+        return "guests";
+    }
+
+    @Override
+    public void onChange(ChangeStreamDocument<Document> change) {
+        guestCache.apply(change);
+    }
+
+    @Override
+    public void onResync() {
+        guestCache.invalidate();
+    }
+
+    @Override
+    public void onStreamOpened() {
+        guestCache.open();
+    }
+
+    @Override
+    public void onStreamClosed() {
+        guestCache.close();
     }
 }
\ No newline at end of file
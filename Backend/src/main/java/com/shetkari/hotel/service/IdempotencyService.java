@@ -0,0 +1,274 @@
+package com.shelkari.hotel.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shelkari.hotel.model.IdempotencyRecord;
+import com.shelkari.hotel.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs a mutation at most once per Idempotency-Key. Completed responses are
+ * kept in Mongo (expired by a TTL index) and fronted by a local concurrent
+ * map, so retries on this node are answered without a round trip and
+ * concurrent retries wait for the first attempt instead of racing it.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final long POLL_INTERVAL_MS = 50;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${hotel.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${hotel.idempotency.max-local-entries:10000}")
+    private int maxLocalEntries;
+
+    @Value("${hotel.idempotency.wait-ms:10000}")
+    private long waitMs;
+
+    // a pending claim older than this belongs to a node that died mid-request and may be taken over
+    @Value("${hotel.idempotency.pending-ttl-ms:30000}")
+    private long pendingTtlMs;
+
+    private final ConcurrentHashMap<String, LocalEntry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepAt = new AtomicLong();
+
+    private record LocalEntry(CompletableFuture<IdempotencyRecord> result, long expiresAt) {}
+
+    @PostConstruct
+    public void ensureTtlIndex() {
+        mongoTemplate.indexOps(IdempotencyRecord.class)
+                .ensureIndex(new Index().on("createdAt", Sort.Direction.ASC).expire(Duration.ofSeconds(ttlSeconds)));
+    }
+
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > 255) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Idempotency-Key is too long"));
+        }
+
+        String id = scope + ":" + key;
+        String fingerprint = fingerprint(request);
+        long now = System.currentTimeMillis();
+        sweepIfDue(now);
+
+        LocalEntry mine = new LocalEntry(new CompletableFuture<>(), now + TimeUnit.SECONDS.toMillis(ttlSeconds));
+        LocalEntry existing = entries.putIfAbsent(id, mine);
+        while (existing != null && existing.expiresAt() < now) {
+            if (entries.replace(id, existing, mine)) {
+                existing = null;
+            } else {
+                existing = entries.putIfAbsent(id, mine);
+            }
+        }
+        if (existing != null) {
+            return replay(await(existing.result()), fingerprint);
+        }
+
+        boolean claimed = false;
+        try {
+            IdempotencyRecord stored = claimOrAwait(id, fingerprint);
+            if (stored != null) {
+                finish(id, mine, stored);
+                return replay(stored, fingerprint);
+            }
+            claimed = true;
+
+            ResponseEntity<?> response = action.get();
+            if (response.getStatusCode().is5xxServerError()) {
+                // failures are not remembered, so the client can retry with the same key
+                release(id, mine);
+                mine.result().complete(null);
+                return response;
+            }
+            IdempotencyRecord completed = record(id, fingerprint, response);
+            idempotencyRecordRepository.save(completed);
+            mine.result().complete(completed);
+            return response;
+        } catch (RuntimeException e) {
+            if (claimed) {
+                idempotencyRecordRepository.deleteById(id);
+            }
+            entries.remove(id, mine);
+            mine.result().complete(null);
+            throw e;
+        }
+    }
+
+    // returns null once this caller owns the key, otherwise the record written by whoever does
+    private IdempotencyRecord claimOrAwait(String id, String fingerprint) {
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (true) {
+            IdempotencyRecord stored = idempotencyRecordRepository.findById(id).orElse(null);
+            if (stored == null) {
+                try {
+                    idempotencyRecordRepository.insert(new IdempotencyRecord(id, fingerprint));
+                    return null;
+                } catch (DuplicateKeyException e) {
+                    continue;
+                }
+            }
+            if (!stored.isCompleted() && takeOverIfAbandoned(stored, fingerprint)) {
+                return null;
+            }
+            if (stored.isCompleted() || System.currentTimeMillis() >= deadline) {
+                return stored.isCompleted() ? stored : inProgress(fingerprint);
+            }
+            sleep();
+        }
+    }
+
+    private boolean takeOverIfAbandoned(IdempotencyRecord pending, String fingerprint) {
+        if (pending.getCreatedAt() == null
+                || pending.getCreatedAt().getTime() > System.currentTimeMillis() - pendingTtlMs) {
+            return false;
+        }
+        // conditional on the exact claim we saw, so only one caller wins the takeover
+        Query abandoned = Query.query(Criteria.where("_id").is(pending.getId())
+                .and("status").is(0)
+                .and("createdAt").is(pending.getCreatedAt()));
+        Update claim = new Update().set("fingerprint", fingerprint).set("createdAt", new Date());
+        return mongoTemplate.updateFirst(abandoned, claim, IdempotencyRecord.class).getModifiedCount() > 0;
+    }
+
+    private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> result) {
+        try {
+            IdempotencyRecord record = result.get(waitMs, TimeUnit.MILLISECONDS);
+            return record != null ? record : failedAttempt();
+        } catch (TimeoutException e) {
+            return inProgress(null);
+        } catch (ExecutionException e) {
+            return failedAttempt();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress(null);
+        }
+    }
+
+    private ResponseEntity<?> replay(IdempotencyRecord record, String fingerprint) {
+        if (record.getFingerprint() != null && fingerprint != null && !record.getFingerprint().equals(fingerprint)) {
+            return ResponseEntity.unprocessableEntity()
+                    .body(Map.of("message", "Idempotency-Key was already used for a different request"));
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(record.getStatus())
+                .header("Idempotent-Replayed", "true");
+        if (record.getContentType() != null) {
+            builder.contentType(MediaType.parseMediaType(record.getContentType()));
+        }
+        return builder.body(record.getBody());
+    }
+
+    private IdempotencyRecord record(String id, String fingerprint, ResponseEntity<?> response) {
+        IdempotencyRecord record = new IdempotencyRecord(id, fingerprint);
+        record.setStatus(response.getStatusCode().value());
+        Object body = response.getBody();
+        if (body instanceof String text) {
+            record.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            record.setBody(text);
+        } else if (body != null) {
+            record.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            record.setBody(toJson(body));
+        }
+        return record;
+    }
+
+    private void finish(String id, LocalEntry mine, IdempotencyRecord stored) {
+        mine.result().complete(stored);
+        // transient answers have no id and must not be replayed to later retries
+        if (stored.getId() == null) {
+            entries.remove(id, mine);
+        }
+    }
+
+    private void release(String id, LocalEntry mine) {
+        idempotencyRecordRepository.deleteById(id);
+        entries.remove(id, mine);
+    }
+
+    private IdempotencyRecord inProgress(String fingerprint) {
+        return transientRecord(fingerprint, "A request with this Idempotency-Key is still being processed");
+    }
+
+    private IdempotencyRecord failedAttempt() {
+        return transientRecord(null, "The first request with this Idempotency-Key failed, please retry");
+    }
+
+    private IdempotencyRecord transientRecord(String fingerprint, String message) {
+        IdempotencyRecord record = new IdempotencyRecord(null, fingerprint);
+        record.setStatus(409);
+        record.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        record.setBody(toJson(Map.of("message", message)));
+        return record;
+    }
+
+    // amortised eviction: at most one caller sweeps per interval, nobody else blocks on it
+    private void sweepIfDue(long now) {
+        long due = nextSweepAt.get();
+        if ((now < due && entries.size() <= maxLocalEntries) || !nextSweepAt.compareAndSet(due, now + 60_000)) {
+            return;
+        }
+        entries.values().removeIf(entry -> entry.expiresAt() < now && entry.result().isDone());
+        if (entries.size() > maxLocalEntries) {
+            // the Mongo copy still answers anything dropped here
+            entries.values().removeIf(entry -> entry.result().isDone() && entries.size() > maxLocalEntries);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to fingerprint request", e);
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to store response", e);
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for an idempotent request", e);
+        }
+    }
+}
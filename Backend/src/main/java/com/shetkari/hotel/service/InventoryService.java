@@ -0,0 +1,322 @@
+package com.shelkari.hotel.service;
+
+import com.shelkari.hotel.model.Ingredient;
+import com.shelkari.hotel.model.Order;
+import com.shelkari.hotel.model.Recipe;
+import com.shelkari.hotel.repository.IngredientRepository;
+import com.shelkari.hotel.repository.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ingredient stock lives in Mongo, and every unit an order takes is first
+ * claimed there with a conditional $inc, so replicas sharing one stock level
+ * can never sell the same unit twice. Claims are made a few orders' worth at
+ * a time and handed out locally with compare-and-set, so most orders never
+ * wait on Mongo; whatever a replica holds unused goes back at the next flush.
+ * Until then other replicas cannot have it, so near the end of an ingredient
+ * one of them may turn an order away for up to one flush interval.
+ */
+@Service
+public class InventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // how many orders' worth of an ingredient one claim takes when Mongo has that much
+    @Value("${hotel.inventory.allotment-orders:10}")
+    private long allotmentOrders;
+
+    private final Map<String, StockCounter> counters = new ConcurrentHashMap<>();
+    private volatile Map<String, Recipe> recipes = Map.of();
+    private volatile boolean loaded;
+
+    private static final class StockCounter {
+        // claimed from Mongo and not yet used or handed back; negative while orders taken
+        // during a Mongo outage are still owed to it
+        final AtomicLong allotted = new AtomicLong();
+        // unclaimed stock in Mongo as last seen
+        volatile long remote;
+        volatile Ingredient ingredient;
+
+        StockCounter(Ingredient ingredient) {
+            this.ingredient = ingredient;
+            this.remote = ingredient.getStock();
+        }
+
+        long available() {
+            return allotted.get() + remote;
+        }
+    }
+
+    // records what was taken on the order, so a later release does not depend on recipes staying the same
+    public void reserve(Order order) {
+        ensureLoaded();
+        Map<String, Long> required = requiredStock(order);
+        Map<String, Long> taken = new TreeMap<>();
+
+        for (Map.Entry<String, Long> need : required.entrySet()) {
+            StockCounter counter = counters.get(need.getKey());
+            if (counter == null) {
+                continue;
+            }
+            if (!tryTake(need.getKey(), counter, need.getValue())) {
+                for (Map.Entry<String, Long> undo : taken.entrySet()) {
+                    give(counters.get(undo.getKey()), undo.getValue());
+                }
+                throw new OutOfStockException("Not enough " + counter.ingredient.getName() + " in stock");
+            }
+            taken.put(need.getKey(), need.getValue());
+        }
+        order.setReservedStock(taken);
+    }
+
+    // what was reserved was claimed from Mongo, so it goes back to this instance's allotment
+    public void release(Order order) {
+        Map<String, Long> reserved = order.getReservedStock();
+        if (reserved == null || reserved.isEmpty()) {
+            return;
+        }
+        ensureLoaded();
+        for (Map.Entry<String, Long> taken : reserved.entrySet()) {
+            StockCounter counter = counters.get(taken.getKey());
+            if (counter != null) {
+                give(counter, taken.getValue());
+            }
+        }
+    }
+
+    public boolean isSoldOut(String menuItemId) {
+        ensureLoaded();
+        Recipe recipe = recipes.get(menuItemId);
+        if (recipe == null || recipe.getLines() == null) {
+            return false;
+        }
+        for (Recipe.RecipeLine line : recipe.getLines()) {
+            StockCounter counter = counters.get(line.getIngredientId());
+            if (counter != null && counter.available() < line.getQuantity()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<Ingredient> getAllIngredients() {
+        ensureLoaded();
+        List<Ingredient> ingredients = new ArrayList<>(counters.size());
+        for (StockCounter counter : counters.values()) {
+            Ingredient live = counter.ingredient;
+            Ingredient view = new Ingredient(live.getName(), live.getUnit(), counter.available());
+            view.setId(live.getId());
+            ingredients.add(view);
+        }
+        ingredients.sort(Comparator.comparing(Ingredient::getName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return ingredients;
+    }
+
+    public Ingredient createIngredient(Ingredient ingredient) {
+        ensureLoaded();
+        Ingredient saved = ingredientRepository.save(ingredient);
+        counters.put(saved.getId(), new StockCounter(saved));
+        return saved;
+    }
+
+    // positive for deliveries, negative for wastage; written straight through so every instance can use it
+    public Ingredient adjustStock(String ingredientId, long quantity) {
+        ensureLoaded();
+        Ingredient synced = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(ingredientId)),
+                new Update().inc("stock", quantity), FindAndModifyOptions.options().returnNew(true), Ingredient.class);
+        if (synced == null) {
+            throw new RuntimeException("Ingredient not found");
+        }
+        // it may have been created on another instance since the last flush
+        StockCounter counter = counters.computeIfAbsent(ingredientId, id -> new StockCounter(synced));
+        counter.remote = synced.getStock();
+        counter.ingredient = synced;
+        Ingredient view = new Ingredient(synced.getName(), synced.getUnit(), counter.available());
+        view.setId(ingredientId);
+        return view;
+    }
+
+    public List<Recipe> getAllRecipes() {
+        ensureLoaded();
+        return new ArrayList<>(recipes.values());
+    }
+
+    public Recipe saveRecipe(String menuItemId, Recipe recipe) {
+        ensureLoaded();
+        recipe.setMenuItemId(menuItemId);
+        Recipe saved = recipeRepository.save(recipe);
+        Map<String, Recipe> updated = new HashMap<>(recipes);
+        updated.put(menuItemId, saved);
+        recipes = updated;
+        return saved;
+    }
+
+    @Scheduled(fixedDelayString = "${hotel.inventory.flush-ms:5000}")
+    public void flush() {
+        if (!loaded) {
+            return;
+        }
+
+        // hand unused allotments back, and settle anything taken on credit during an outage
+        for (Map.Entry<String, StockCounter> entry : counters.entrySet()) {
+            StockCounter counter = entry.getValue();
+            long delta = counter.allotted.getAndSet(0);
+            if (delta == 0) {
+                continue;
+            }
+            try {
+                Ingredient synced = mongoTemplate.findAndModify(
+                        Query.query(Criteria.where("_id").is(entry.getKey())),
+                        new Update().inc("stock", delta),
+                        FindAndModifyOptions.options().returnNew(true),
+                        Ingredient.class);
+                if (synced == null) {
+                    counters.remove(entry.getKey());
+                    continue;
+                }
+                counter.remote = synced.getStock();
+                counter.ingredient = synced;
+            } catch (DataAccessException e) {
+                counter.allotted.addAndGet(delta);
+                log.warn("Failed to write back stock for ingredient {}", entry.getKey(), e);
+            }
+        }
+
+        // pick up stock, ingredients and recipes changed by other instances
+        try {
+            for (Ingredient ingredient : ingredientRepository.findAll()) {
+                StockCounter counter = counters.putIfAbsent(ingredient.getId(), new StockCounter(ingredient));
+                if (counter != null) {
+                    counter.remote = ingredient.getStock();
+                    counter.ingredient = ingredient;
+                }
+            }
+            recipes = loadRecipes();
+        } catch (DataAccessException e) {
+            log.warn("Failed to refresh inventory from Mongo", e);
+        }
+    }
+
+    private boolean tryTake(String ingredientId, StockCounter counter, long quantity) {
+        if (takeAllotted(counter, quantity)) {
+            return true;
+        }
+        try {
+            return claim(ingredientId, counter, quantity);
+        } catch (DataAccessException e) {
+            // orders are journaled so they survive Mongo outages; stock falls back to the last level seen
+            log.warn("Mongo unavailable, reserving {} against the last known stock", ingredientId);
+            return takeOnCredit(counter, quantity);
+        }
+    }
+
+    private static boolean takeAllotted(StockCounter counter, long quantity) {
+        while (true) {
+            long current = counter.allotted.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (counter.allotted.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    // a batch first, so the next orders are served locally, then only what this order needs
+    private boolean claim(String ingredientId, StockCounter counter, long quantity) {
+        for (long amount : new long[] {quantity * allotmentOrders, quantity}) {
+            Ingredient synced = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(ingredientId).and("stock").gte(amount)),
+                    new Update().inc("stock", -amount),
+                    FindAndModifyOptions.options().returnNew(true),
+                    Ingredient.class);
+            if (synced != null) {
+                counter.remote = synced.getStock();
+                counter.allotted.addAndGet(amount - quantity);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean takeOnCredit(StockCounter counter, long quantity) {
+        while (true) {
+            long current = counter.allotted.get();
+            if (current + counter.remote < quantity) {
+                return false;
+            }
+            if (counter.allotted.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    private static void give(StockCounter counter, long quantity) {
+        counter.allotted.addAndGet(quantity);
+    }
+
+    private Map<String, Long> requiredStock(Order order) {
+        Map<String, Long> required = new TreeMap<>();
+        if (order.getItems() == null) {
+            return required;
+        }
+        Map<String, Recipe> current = recipes;
+        for (Order.OrderItem item : order.getItems()) {
+            Recipe recipe = current.get(item.getMenuItemId());
+            if (recipe == null || recipe.getLines() == null || item.getQuantity() == null) {
+                continue;
+            }
+            for (Recipe.RecipeLine line : recipe.getLines()) {
+                required.merge(line.getIngredientId(), line.getQuantity() * item.getQuantity(), Long::sum);
+            }
+        }
+        return required;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            for (Ingredient ingredient : ingredientRepository.findAll()) {
+                counters.put(ingredient.getId(), new StockCounter(ingredient));
+            }
+            recipes = loadRecipes();
+            loaded = true;
+        }
+    }
+
+    private Map<String, Recipe> loadRecipes() {
+        Map<String, Recipe> loadedRecipes = new HashMap<>();
+        for (Recipe recipe : recipeRepository.findAll()) {
+            loadedRecipes.put(recipe.getMenuItemId(), recipe);
+        }
+        return loadedRecipes;
+    }
+}
@@ -0,0 +1,293 @@
+package com.shelkari.hotel.service;
+
+import com.shelkari.hotel.model.*;
+import com.shelkari.hotel.repository.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Renders printable HTML invoices off the request path. Artifacts are stored
+ * under the SHA-256 of their content, and a small ref file per bill points at
+ * the latest rendering, so re-renders of unchanged bills cost no extra disk.
+ */
+@Service
+public class InvoiceService {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceService.class);
+
+    // bill ids name files under refs/, so keep them to a safe alphabet
+    private static final Pattern BILL_ID = Pattern.compile("[A-Za-z0-9_-]+");
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private GuestRepository guestRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${hotel.invoices.dir:data/invoices}")
+    private String directory;
+
+    @Value("${hotel.invoices.render-threads:2}")
+    private int renderThreads;
+
+    @Value("${hotel.invoices.queue-size:100}")
+    private int queueSize;
+
+    private Path root;
+    private Path refs;
+    private ThreadPoolExecutor executor;
+    private final Map<String, String> hashByBill = new ConcurrentHashMap<>();
+    private final Set<String> rendering = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(directory);
+        refs = root.resolve("refs");
+        Files.createDirectories(refs);
+
+        executor = new ThreadPoolExecutor(renderThreads, renderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "invoice-renderer");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // queues a render unless one is already pending; returns false if there is no such bill
+    public boolean renderAsync(String billId) {
+        if (!BILL_ID.matcher(billId).matches() || !billRepository.existsById(billId)) {
+            return false;
+        }
+        if (!rendering.add(billId)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    render(billId);
+                } catch (IOException | RuntimeException e) {
+                    log.error("Failed to render invoice for bill {}", billId, e);
+                } finally {
+                    rendering.remove(billId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rendering.remove(billId);
+            log.warn("Invoice render queue is full, skipping bill {}", billId);
+        }
+        return true;
+    }
+
+    // an invoice lists the bill's orders, so adding or removing one makes an existing invoice stale;
+    // looked up off the caller's thread, since that is usually the journal replayer
+    public void refreshForGuest(String guestId) {
+        try {
+            executor.execute(() -> {
+                try {
+                    billRepository.findByGuestId(guestId)
+                            .filter(bill -> "Paid".equalsIgnoreCase(bill.getPaymentStatus())
+                                    || hashByBill.containsKey(bill.getId()) || Files.exists(refs.resolve(bill.getId())))
+                            .ifPresent(bill -> renderAsync(bill.getId()));
+                } catch (RuntimeException e) {
+                    log.error("Failed to refresh the invoice of guest {}", guestId, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Invoice render queue is full, not refreshing the invoice of guest {}", guestId);
+        }
+    }
+
+    public Optional<Path> findInvoice(String billId) throws IOException {
+        if (!BILL_ID.matcher(billId).matches()) {
+            return Optional.empty();
+        }
+        String hash = hashByBill.get(billId);
+        if (hash == null) {
+            Path ref = refs.resolve(billId);
+            if (!Files.exists(ref)) {
+                return Optional.empty();
+            }
+            hash = Files.readString(ref).trim();
+            hashByBill.put(billId, hash);
+        }
+        Path artifact = artifactPath(hash);
+        return Files.exists(artifact) ? Optional.of(artifact) : Optional.empty();
+    }
+
+    public String hashOf(Path artifact) {
+        String name = artifact.getFileName().toString();
+        return name.substring(0, name.indexOf('.'));
+    }
+
+    /**
+     * Drops refs of bills that no longer exist, then artifacts and temp files
+     * nothing points at. Files younger than {@code minAgeMs} are left alone,
+     * since a render writes its artifact before its ref.
+     */
+    public int purgeOrphans(long minAgeMs) throws IOException {
+        long cutoff = System.currentTimeMillis() - minAgeMs;
+        int removed = 0;
+
+        List<Path> refFiles;
+        try (Stream<Path> listing = Files.list(refs)) {
+            refFiles = listing.filter(path -> !path.getFileName().toString().endsWith(".tmp")).toList();
+        }
+        Set<String> referenced = new HashSet<>();
+        for (int from = 0; from < refFiles.size(); from += 500) {
+            List<Path> chunk = refFiles.subList(from, Math.min(from + 500, refFiles.size()));
+            Set<String> existing = new HashSet<>();
+            billRepository.findAllById(chunk.stream().map(path -> path.getFileName().toString()).toList())
+                    .forEach(bill -> existing.add(bill.getId()));
+            for (Path ref : chunk) {
+                String billId = ref.getFileName().toString();
+                if (existing.contains(billId) || Files.getLastModifiedTime(ref).toMillis() > cutoff) {
+                    referenced.add(Files.readString(ref).trim());
+                } else if (Files.deleteIfExists(ref)) {
+                    hashByBill.remove(billId);
+                    removed++;
+                }
+            }
+        }
+
+        try (Stream<Path> tree = Files.walk(root)) {
+            for (Path path : tree.filter(Files::isRegularFile).toList()) {
+                String name = path.getFileName().toString();
+                boolean orphan = name.endsWith(".tmp")
+                        || (name.endsWith(".html") && !path.startsWith(refs) && !referenced.contains(hashOf(path)));
+                if (orphan && Files.getLastModifiedTime(path).toMillis() < cutoff && Files.deleteIfExists(path)) {
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private void render(String billId) throws IOException {
+        Bill bill = billRepository.findById(billId)
+                .orElseThrow(() -> new RuntimeException("Bill not found"));
+        byte[] html = renderHtml(bill).getBytes(StandardCharsets.UTF_8);
+        String hash = sha256(html);
+
+        Path artifact = artifactPath(hash);
+        if (!Files.exists(artifact)) {
+            Files.createDirectories(artifact.getParent());
+            Path temp = Files.createTempFile(artifact.getParent(), hash, ".tmp");
+            Files.write(temp, html);
+            Files.move(temp, artifact, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        Path tempRef = Files.createTempFile(refs, billId, ".tmp");
+        Files.writeString(tempRef, hash);
+        Files.move(tempRef, refs.resolve(billId), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        hashByBill.put(billId, hash);
+    }
+
+    private String renderHtml(Bill bill) {
+        Guest guest = guestRepository.findById(bill.getGuestId()).orElse(null);
+        // a paid bill's older orders may already have been archived
+        List<Order> orders = new ArrayList<>(orderRepository.findByGuestId(bill.getGuestId()));
+        orders.addAll(mongoTemplate.find(Query.query(Criteria.where("guestId").is(bill.getGuestId())),
+                Order.class, OrderArchiveJob.ARCHIVE_COLLECTION));
+        orders.sort(Comparator.comparing(Order::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        List<String> menuItemIds = orders.stream()
+                .flatMap(order -> order.getItems().stream())
+                .map(Order.OrderItem::getMenuItemId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<String, MenuItem> menuItems = menuItemRepository.findByIdIn(menuItemIds).stream()
+                .collect(Collectors.toMap(MenuItem::getId, Function.identity()));
+
+        SimpleDateFormat dateFormat = new SimpleDateFormat("dd MMM yyyy, HH:mm");
+        StringBuilder html = new StringBuilder(4096);
+        html.append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Invoice ")
+                .append(escape(bill.getId()))
+                .append("</title>\n<style>")
+                .append("body{font-family:sans-serif;margin:2em}table{width:100%;border-collapse:collapse}")
+                .append("th,td{padding:4px 8px;border-bottom:1px solid #ddd;text-align:left}")
+                .append("td.amount,th.amount{text-align:right}@media print{body{margin:0}}")
+                .append("</style></head><body>\n<h1>Shetkari Hotel</h1>\n");
+
+        html.append("<p>Invoice: ").append(escape(bill.getId())).append("<br>Guest: ")
+                .append(escape(guest != null ? guest.getName() : "Unknown")).append("<br>Room: ")
+                .append(escape(guest != null ? guest.getRoomNo() : "Unknown")).append("</p>\n");
+
+        html.append("<table>\n<tr><th>Date</th><th>Item</th><th class=\"amount\">Qty</th>")
+                .append("<th class=\"amount\">Amount</th></tr>\n");
+        for (Order order : orders) {
+            String date = order.getCreatedAt() != null ? dateFormat.format(order.getCreatedAt()) : "";
+            for (Order.OrderItem item : order.getItems()) {
+                MenuItem menuItem = menuItems.get(item.getMenuItemId());
+                html.append("<tr><td>").append(date)
+                        .append("</td><td>").append(escape(menuItem != null ? menuItem.getName() : "Unknown"))
+                        .append("</td><td class=\"amount\">").append(item.getQuantity())
+                        .append("</td><td class=\"amount\">").append(Money.toRupees(item.getPrice()))
+                        .append("</td></tr>\n");
+            }
+        }
+        html.append("</table>\n<table>\n");
+        appendTotal(html, "Room charges", bill.getRoomCharges());
+        appendTotal(html, "Food charges", bill.getFoodCharges());
+        appendTotal(html, "Total", bill.getTotalAmount());
+        html.append("</table>\n<p>Payment status: ").append(escape(bill.getPaymentStatus()))
+                .append("</p>\n</body></html>\n");
+        return html.toString();
+    }
+
+    private static void appendTotal(StringBuilder html, String label, long paise) {
+        html.append("<tr><th>").append(label).append("</th><td class=\"amount\">")
+                .append(Money.toRupees(paise)).append("</td></tr>\n");
+    }
+
+    private static String escape(String value) {
+        return value == null ? "" : HtmlUtils.htmlEscape(value);
+    }
+
+    private Path artifactPath(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash + ".html");
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.shelkari.hotel.service;
+
+public interface JobContext {
+
+    // null on a fresh run
+    String getCheckpoint();
+
+    // persists progress and renews the lease; false once the lease is lost
+    boolean saveCheckpoint(String checkpoint);
+
+    // remaining units of work, reported with the job's metrics
+    void setBacklog(long backlog);
+
+    // false once the lease is lost or the node is shutting down
+    boolean isActive();
+}
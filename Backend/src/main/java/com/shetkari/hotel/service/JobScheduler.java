@@ -0,0 +1,352 @@
+package com.shelkari.hotel.service;
+
+import com.shelkari.hotel.model.JobLease;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs {@link ScheduledJob}s once per schedule across all replicas. Each job
+ * has a lease document in job_leases; a node runs a job only after taking
+ * the lease with a conditional findAndModify, renews it while the job runs
+ * and hands it back with the next due time when the job finishes. Jobs run
+ * on their own small pool, never on request or scheduling threads.
+ */
+@Service
+public class JobScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(JobScheduler.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private List<ScheduledJob> jobs;
+
+    @Value("${hotel.jobs.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hotel.node-id:${HOSTNAME:local}}")
+    private String nodeId;
+
+    @Value("${hotel.jobs.poll-ms:5000}")
+    private long pollMs;
+
+    @Value("${hotel.jobs.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${hotel.jobs.threads:2}")
+    private int threads;
+
+    @Value("${hotel.jobs.retry-delay:5m}")
+    private Duration retryDelay;
+
+    // unique per process, so two processes sharing a host name never share a lease
+    private String owner;
+    private Map<String, JobState> states = Map.of();
+    private ScheduledExecutorService ticker;
+    private ThreadPoolExecutor workers;
+    private volatile boolean running;
+
+    private static final class JobState {
+        final ScheduledJob job;
+        final AtomicBoolean active = new AtomicBoolean();
+        volatile boolean registered;
+        volatile boolean leaseLost;
+        // the lease is only trusted locally until here, in case renewals stop getting through
+        volatile long leaseValidUntil;
+        volatile long backlog;
+        final AtomicLong runs = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong totalDurationMs = new AtomicLong();
+        volatile long lastDurationMs;
+
+        JobState(ScheduledJob job) {
+            this.job = job;
+        }
+    }
+
+    // called by BackgroundServices once the application is ready
+    public void start() {
+        if (!enabled) {
+            log.info("Scheduled jobs are disabled on this node");
+            return;
+        }
+        owner = nodeId + "-" + UUID.randomUUID().toString().substring(0, 8);
+        states = jobs.stream().collect(Collectors.toMap(ScheduledJob::name, JobState::new,
+                (a, b) -> { throw new IllegalStateException("Duplicate job name " + a.job.name()); },
+                LinkedHashMap::new));
+
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "job-scheduler"));
+        workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+                runnable -> daemon(runnable, "job-worker"), new ThreadPoolExecutor.AbortPolicy());
+        running = true;
+        ticker.scheduleWithFixedDelay(this::tick, pollMs, pollMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (ticker == null) {
+            return;
+        }
+        ticker.shutdownNow();
+        // running jobs see isActive() turn false, save their checkpoint and hand the lease back
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    // makes a job due now; false if there is no such job
+    public boolean runNow(String name) {
+        JobState state = states.get(name);
+        if (state == null) {
+            return false;
+        }
+        register(state);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(name)),
+                new Update().set("nextRunAt", new Date()), JobLease.class);
+        return true;
+    }
+
+    public List<Map<String, Object>> getJobs() {
+        Map<String, JobLease> leases = mongoTemplate.find(
+                        Query.query(Criteria.where("_id").in(states.keySet())), JobLease.class).stream()
+                .collect(Collectors.toMap(JobLease::getId, Function.identity()));
+
+        List<Map<String, Object>> result = new ArrayList<>(states.size());
+        for (JobState state : states.values()) {
+            JobLease lease = leases.get(state.job.name());
+            Map<String, Object> job = new LinkedHashMap<>();
+            job.put("name", state.job.name());
+            job.put("trigger", state.job.trigger().describe());
+            if (lease != null) {
+                boolean held = lease.getOwner() != null && lease.getExpiresAt().after(new Date());
+                job.put("runningOn", held ? lease.getOwner() : null);
+                job.put("nextRunAt", lease.getNextRunAt());
+                job.put("checkpoint", lease.getCheckpoint());
+                job.put("backlog", state.active.get() ? state.backlog : lease.getBacklog());
+                job.put("lastRunBy", lease.getLastRunBy());
+                job.put("lastStartedAt", lease.getLastStartedAt());
+                job.put("lastFinishedAt", lease.getLastFinishedAt());
+                job.put("lastDurationMs", lease.getLastDurationMs());
+                job.put("lastError", lease.getLastError());
+            }
+
+            // counters for runs on this node only
+            long runs = state.runs.get();
+            Map<String, Object> local = new LinkedHashMap<>();
+            local.put("node", owner);
+            local.put("running", state.active.get());
+            local.put("runs", runs);
+            local.put("failures", state.failures.get());
+            local.put("lastDurationMs", state.lastDurationMs);
+            local.put("averageDurationMs", runs > 0 ? state.totalDurationMs.get() / runs : 0);
+            job.put("local", local);
+            result.add(job);
+        }
+        return result;
+    }
+
+    private void tick() {
+        if (!running) {
+            return;
+        }
+        for (JobState state : states.values()) {
+            try {
+                if (state.active.get()) {
+                    renew(state);
+                } else if (workers.getActiveCount() < threads) {
+                    tryStart(state);
+                }
+            } catch (DataAccessException e) {
+                log.warn("Job scheduler could not reach Mongo for job {}", state.job.name(), e);
+            } catch (RuntimeException e) {
+                log.error("Job scheduler failed on job {}", state.job.name(), e);
+            }
+        }
+    }
+
+    private void tryStart(JobState state) {
+        register(state);
+        long now = System.currentTimeMillis();
+        Date nowDate = new Date(now);
+        Query due = Query.query(Criteria.where("_id").is(state.job.name())
+                .and("nextRunAt").lte(nowDate)
+                .and("expiresAt").lte(nowDate));
+        Update take = new Update()
+                .set("owner", owner)
+                .set("expiresAt", new Date(now + leaseMs))
+                .set("lastStartedAt", nowDate);
+        JobLease lease = mongoTemplate.findAndModify(due, take, FindAndModifyOptions.options().returnNew(true),
+                JobLease.class);
+        if (lease == null) {
+            return;
+        }
+
+        state.active.set(true);
+        state.leaseLost = false;
+        state.leaseValidUntil = now + leaseMs / 2;
+        state.backlog = lease.getBacklog();
+        try {
+            workers.execute(() -> runJob(state, lease.getCheckpoint()));
+        } catch (RejectedExecutionException e) {
+            state.active.set(false);
+            release(state, new Update());
+        }
+    }
+
+    private void runJob(JobState state, String checkpoint) {
+        Context context = new Context(state, checkpoint);
+        long started = System.currentTimeMillis();
+        String error = null;
+        try {
+            state.job.run(context);
+        } catch (RuntimeException e) {
+            error = e.toString();
+            state.failures.incrementAndGet();
+            log.error("Job {} failed", state.job.name(), e);
+        }
+
+        long duration = System.currentTimeMillis() - started;
+        state.runs.incrementAndGet();
+        state.totalDurationMs.addAndGet(duration);
+        state.lastDurationMs = duration;
+
+        Instant now = Instant.now();
+        Update update = new Update()
+                .set("lastRunBy", owner)
+                .set("lastFinishedAt", Date.from(now))
+                .set("lastDurationMs", duration)
+                .set("lastError", error)
+                .set("backlog", state.backlog);
+        if (error != null) {
+            update.set("nextRunAt", Date.from(now.plus(retryDelay)));
+        } else if (context.isActive()) {
+            update.set("nextRunAt", Date.from(state.job.trigger().next(now))).unset("checkpoint").set("backlog", 0L);
+        }
+        // otherwise the run was cut short: the job stays due and resumes from its checkpoint
+        try {
+            release(state, update);
+        } finally {
+            state.active.set(false);
+        }
+    }
+
+    private void release(JobState state, Update update) {
+        try {
+            mongoTemplate.updateFirst(ownedBy(state),
+                    update.set("owner", null).set("expiresAt", new Date()), JobLease.class);
+        } catch (DataAccessException e) {
+            // the lease simply expires
+            log.warn("Failed to release lease for job {}", state.job.name(), e);
+        }
+    }
+
+    private void renew(JobState state) {
+        if (state.leaseLost) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Update update = new Update().set("expiresAt", new Date(now + leaseMs)).set("backlog", state.backlog);
+        if (mongoTemplate.updateFirst(ownedBy(state), update, JobLease.class).getMatchedCount() == 0) {
+            state.leaseLost = true;
+            log.warn("Lost the lease for job {}", state.job.name());
+        } else {
+            state.leaseValidUntil = now + leaseMs / 2;
+        }
+    }
+
+    // creates the lease document on first sight, first due one trigger period from now
+    private void register(JobState state) {
+        if (state.registered) {
+            return;
+        }
+        Date firstRun = Date.from(state.job.trigger().next(Instant.now()));
+        try {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(state.job.name())),
+                    new Update().setOnInsert("nextRunAt", firstRun).setOnInsert("expiresAt", new Date(0)),
+                    JobLease.class);
+        } catch (DuplicateKeyException e) {
+            // another node registered it first
+        }
+        state.registered = true;
+    }
+
+    private Query ownedBy(JobState state) {
+        return Query.query(Criteria.where("_id").is(state.job.name()).and("owner").is(owner));
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private final class Context implements JobContext {
+        private final JobState state;
+        private final String checkpoint;
+
+        Context(JobState state, String checkpoint) {
+            this.state = state;
+            this.checkpoint = checkpoint;
+        }
+
+        @Override
+        public String getCheckpoint() {
+            return checkpoint;
+        }
+
+        @Override
+        public boolean saveCheckpoint(String value) {
+            if (!isActive()) {
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            Update update = new Update()
+                    .set("checkpoint", value)
+                    .set("backlog", state.backlog)
+                    .set("expiresAt", new Date(now + leaseMs));
+            try {
+                if (mongoTemplate.updateFirst(ownedBy(state), update, JobLease.class).getMatchedCount() == 0) {
+                    state.leaseLost = true;
+                    return false;
+                }
+                state.leaseValidUntil = now + leaseMs / 2;
+            } catch (DataAccessException e) {
+                // the chunk is repeated on resume; keep going while the lease is still trusted
+                log.warn("Failed to save checkpoint for job {}", state.job.name(), e);
+            }
+            return isActive();
+        }
+
+        @Override
+        public void setBacklog(long backlog) {
+            state.backlog = backlog;
+        }
+
+        @Override
+        public boolean isActive() {
+            return running && !state.leaseLost && System.currentTimeMillis() < state.leaseValidUntil;
+        }
+    }
+}
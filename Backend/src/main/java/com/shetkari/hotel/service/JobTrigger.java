@@ -0,0 +1,37 @@
+package com.shelkari.hotel.service;
+
+import org.springframework.scheduling.support.CronExpression;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+// either a cron expression in the server's time zone, or a delay after the previous run finished
+public record JobTrigger(CronExpression cron, Duration fixedDelay) {
+
+    public static JobTrigger cron(String expression) {
+        return new JobTrigger(CronExpression.parse(expression), null);
+    }
+
+    public static JobTrigger fixedDelay(Duration delay) {
+        if (delay.isNegative() || delay.isZero()) {
+            throw new IllegalArgumentException("Fixed delay must be positive");
+        }
+        return new JobTrigger(null, delay);
+    }
+
+    public Instant next(Instant after) {
+        if (fixedDelay != null) {
+            return after.plus(fixedDelay);
+        }
+        ZonedDateTime next = cron.next(after.atZone(ZoneId.systemDefault()));
+        if (next == null) {
+            throw new IllegalStateException("Cron expression " + cron + " never fires again");
+        }
+        return next.toInstant();
+    }
+
+    public String describe() {
+        return fixedDelay != null ? "fixed-delay " + fixedDelay : "cron " + cron;
+    }
+}
@@ -0,0 +1,51 @@
+package com.shelkari.hotel.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Cleans up invoice files nothing points at and old backups. These live on
+ * each node's own disk, so this runs on every node on a plain local schedule
+ * rather than under a cluster-wide job lease. Nothing injects it, so under
+ * lazy initialisation BackgroundServices creates it, which schedules it.
+ */
+@Component
+@ConditionalOnProperty(name = "hotel.background.enabled", havingValue = "true", matchIfMissing = true)
+public class LocalFilePurge {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalFilePurge.class);
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private BackupService backupService;
+
+    @Value("${hotel.files.purge.invoice-min-age:1h}")
+    private Duration invoiceMinAge;
+
+    @Value("${hotel.files.purge.keep-backups:7}")
+    private int keepBackups;
+
+    @Scheduled(initialDelayString = "${hotel.files.purge.initial-delay:PT5M}",
+            fixedDelayString = "${hotel.files.purge.fixed-delay:PT6H}")
+    public void purge() {
+        try {
+            log.info("Purged {} orphaned invoice file(s)", invoiceService.purgeOrphans(invoiceMinAge.toMillis()));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to purge invoice files", e);
+        }
+        try {
+            log.info("Purged {} old backup(s)", backupService.purgeOldBackups(keepBackups));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to purge old backups", e);
+        }
+    }
+}
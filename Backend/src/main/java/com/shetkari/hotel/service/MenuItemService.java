@@ -2,27 +2,46 @@ package com.shelkari.hotel.service;
 
 import com.shelkari.hotel.model.MenuItem;
 import com.shelkari.hotel.repository.MenuItemRepository;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Optional;
 
 @Service
-public class MenuItemService {
+public class MenuItemService implements ChangeStreamSubscriber {
 
     @Autowired
     private MenuItemRepository menuItemRepository;
 
+    @Autowired
+    private MongoConverter mongoConverter;
+
+    private DocumentCache<MenuItem> menuCache;
+
+    @PostConstruct
+    public void initCache() {
+        menuCache = new DocumentCache<>(MenuItem.class, MenuItem::getId, menuItemRepository::findAll, mongoConverter);
+    }
+
     public List<MenuItem> getAllMenuItems() {
-        return menuItemRepository.findAll();
+        return menuCache.all();
     }
 
     public Optional<MenuItem> getMenuItemById(String id) {
+        if (menuCache.isLoaded()) {
+            return menuCache.get(id);
+        }
         return menuItemRepository.findById(id);
     }
 
     public MenuItem createMenuItem(MenuItem menuItem) {
-        return menuItemRepository.save(menuItem);
+        MenuItem saved = menuItemRepository.save(menuItem);
+        menuCache.put(saved);
+        return saved;
     }
 
     public MenuItem updateMenuItem(String id, MenuItem menuItemDetails) {
@@ -32,14 +51,43 @@ public class MenuItemService {
         if (menuItemDetails.getName() != null) menuItem.setName(menuItemDetails.getName());
         if (menuItemDetails.getDescription() != null) menuItem.setDescription(menuItemDetails.getDescription());
         if (menuItemDetails.getCategory() != null) menuItem.setCategory(menuItemDetails.getCategory());
-        if (menuItemDetails.getPrice() != null) menuItem.setPrice(menuItemDetails.getPrice());
+        // an absent price deserializes to 0, and no menu item is free
+        if (menuItemDetails.getPrice() > 0) menuItem.setPrice(menuItemDetails.getPrice());
 
-        return menuItemRepository.save(menuItem);
+        MenuItem saved = menuItemRepository.save(menuItem);
+        menuCache.put(saved);
+        return saved;
     }
 
     public void deleteMenuItem(String id) {
         MenuItem menuItem = menuItemRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Menu item not found"));
         menuItemRepository.delete(menuItem);
+        menuCache.remove(id);
+    }
+
+    @Override
+    public String collection() {
+        return "menuitems";
+    }
+
+    @Override
+    public void onChange(ChangeStreamDocument<Document> change) {
+        menuCache.apply(change);
+    }
+
+    @Override
+    public void onResync() {
+        menuCache.invalidate();
+    }
+
+    @Override
+    public void onStreamOpened() {
+        menuCache.open();
+    }
+
+    @Override
+    public void onStreamClosed() {
+        menuCache.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.shelkari.hotel.service;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Rewrites money fields written before amounts were kept in paise. Anything
+ * still stored as a double, int or decimal is taken to be rupees and becomes
+ * an Int64 of paise; Int64 values are already converted, so reruns are no-ops.
+ * It is a one-off command, run against the database before the first deploy
+ * that stores paise, and exits when done:
+ * <pre>
+ * java -jar hotel.jar --spring.main.web-application-type=none --hotel.migrations.money=true
+ * </pre>
+ * A marker in the migrations collection makes later runs return at once.
+ */
+@Component
+@ConditionalOnProperty(name = "hotel.migrations.money", havingValue = "true")
+public class MoneyMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MoneyMigration.class);
+
+    private static final String MARKERS = "migrations";
+    private static final String MARKER_ID = "money-paise";
+    private static final List<String> RUPEE_TYPES = List.of("double", "int", "decimal");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (mongoTemplate.findById(MARKER_ID, Document.class, MARKERS) != null) {
+            log.info("Money migration already done, nothing to convert");
+        } else {
+            convertFields("menuitems", "price");
+            convertFields("bills", "roomCharges", "foodCharges", "totalAmount");
+            convertFields("orders", "totalPrice");
+            convertOrderItems("orders");
+            mongoTemplate.save(new Document("_id", MARKER_ID).append("completedAt", new Date()), MARKERS);
+            log.info("Money migration finished");
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+
+    private void convertFields(String collection, String... fields) {
+        for (String field : fields) {
+            Document filter = new Document(field, new Document("$type", RUPEE_TYPES));
+            Document set = new Document("$set", new Document(field, toPaise("$" + field)));
+            report(collection, field, mongoTemplate.getCollection(collection).updateMany(filter, List.of(set)));
+        }
+    }
+
+    private void convertOrderItems(String collection) {
+        Document filter = new Document("items.price", new Document("$type", RUPEE_TYPES));
+        Document convertedPrice = new Document("$cond", List.of(
+                new Document("$in", List.of(new Document("$type", "$$item.price"), RUPEE_TYPES)),
+                toPaise("$$item.price"),
+                "$$item.price"));
+        Document mapItems = new Document("$map", new Document("input", "$items")
+                .append("as", "item")
+                .append("in", new Document("$mergeObjects", List.of("$$item", new Document("price", convertedPrice)))));
+        Document set = new Document("$set", new Document("items", mapItems));
+        report(collection, "items.price", mongoTemplate.getCollection(collection).updateMany(filter, List.of(set)));
+    }
+
+    private static Document toPaise(String rupees) {
+        Document times100 = new Document("$multiply", List.of(rupees, 100));
+        return new Document("$toLong", new Document("$round", List.of(times100, 0)));
+    }
+
+    private static void report(String collection, String field, UpdateResult result) {
+        if (result.getModifiedCount() > 0) {
+            log.info("Converted {} {}.{} value(s) from rupees to paise", result.getModifiedCount(), collection, field);
+        }
+    }
+}
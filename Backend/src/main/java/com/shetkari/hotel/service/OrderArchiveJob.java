@@ -0,0 +1,140 @@
+package com.shelkari.hotel.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.shelkari.hotel.model.Bill;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Moves orders older than the retention period out of the hot orders
+ * collection into orders_archive, once their guest's bill is paid. Each chunk
+ * is copied before it is deleted and duplicate copies are ignored, so a chunk
+ * interrupted between the two steps is finished by the next attempt.
+ */
+@Component
+public class OrderArchiveJob implements ScheduledJob {
+
+    public static final String ARCHIVE_COLLECTION = "orders_archive";
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Value("${hotel.jobs.archive-orders.cron:0 30 3 * * *}")
+    private String cron;
+
+    @Value("${hotel.jobs.archive-orders.retention-days:90}")
+    private int retentionDays;
+
+    @Value("${hotel.jobs.archive-orders.chunk-size:500}")
+    private int chunkSize;
+
+    @Override
+    public String name() {
+        return "archive-orders";
+    }
+
+    @Override
+    public JobTrigger trigger() {
+        return JobTrigger.cron(cron);
+    }
+
+    // the checkpoint is the last order id looked at; orders of unpaid bills are skipped over
+    @Override
+    public void run(JobContext context) {
+        Date cutoff = Date.from(Instant.now().minus(retentionDays, ChronoUnit.DAYS));
+        Object after = parseId(context.getCheckpoint());
+        long backlog = mongoTemplate.count(candidates(cutoff, after), "orders");
+        context.setBacklog(backlog);
+
+        while (context.isActive()) {
+            Query chunk = candidates(cutoff, after).with(Sort.by("_id")).limit(chunkSize);
+            List<Document> orders = mongoTemplate.find(chunk, Document.class, "orders");
+            if (orders.isEmpty()) {
+                return;
+            }
+
+            Set<String> paidGuests = paidGuests(orders);
+            List<Document> archivable = new ArrayList<>(orders.size());
+            for (Document order : orders) {
+                if (paidGuests.contains(order.getString("guestId"))) {
+                    archivable.add(order);
+                }
+            }
+            if (!archivable.isEmpty()) {
+                copyToArchive(archivable);
+                List<Object> ids = archivable.stream().map(order -> order.get("_id")).toList();
+                mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), "orders");
+                dashboardService.invalidate();
+            }
+
+            after = orders.get(orders.size() - 1).get("_id");
+            backlog = Math.max(0, backlog - orders.size());
+            context.setBacklog(backlog);
+            if (!context.saveCheckpoint(formatId(after))) {
+                return;
+            }
+        }
+    }
+
+    private Set<String> paidGuests(List<Document> orders) {
+        Set<String> guestIds = new HashSet<>();
+        for (Document order : orders) {
+            guestIds.add(order.getString("guestId"));
+        }
+        Query paid = Query.query(Criteria.where("guestId").in(guestIds).and("paymentStatus").is("Paid"));
+        paid.fields().include("guestId");
+        Set<String> paidGuests = new HashSet<>();
+        for (Bill bill : mongoTemplate.find(paid, Bill.class)) {
+            paidGuests.add(bill.getGuestId());
+        }
+        return paidGuests;
+    }
+
+    private void copyToArchive(List<Document> orders) {
+        try {
+            mongoTemplate.getCollection(ARCHIVE_COLLECTION).insertMany(orders, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static Object parseId(String checkpoint) {
+        if (checkpoint == null) {
+            return null;
+        }
+        return ObjectId.isValid(checkpoint) ? new ObjectId(checkpoint) : checkpoint;
+    }
+
+    private static String formatId(Object id) {
+        return id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+    }
+
+    private static Query candidates(Date cutoff, Object after) {
+        Criteria criteria = Criteria.where("createdAt").lt(cutoff);
+        if (after != null) {
+            criteria = criteria.and("_id").gt(after);
+        }
+        return Query.query(criteria);
+    }
+}
@@ -0,0 +1,9 @@
+package com.shelkari.hotel.service;
+
+import java.util.Date;
+
+// published by OrderService once an order is in (or removed from) Mongo
+public record OrderEvent(Type type, String orderId, Date createdAt, long totalPrice) {
+
+    public enum Type { PLACED, DELETED }
+}
@@ -0,0 +1,440 @@
+package com.shelkari.hotel.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped log of accepted orders. Appends are group
+ * committed by a single writer thread; the replayer reads entries back in
+ * sequence order and checkpoints what has been applied to Mongo so fully
+ * applied segments can be deleted.
+ */
+@Service
+public class OrderJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderJournal.class);
+
+    // record layout: payload length (int), sequence (long), crc32c of payload (int), payload
+    private static final int HEADER_BYTES = 16;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    @Value("${hotel.journal.dir:data/journal}")
+    private String directory;
+
+    @Value("${hotel.journal.segment-bytes:16777216}")
+    private int segmentBytes;
+
+    @Value("${hotel.journal.commit-batch:256}")
+    private int commitBatch;
+
+    @Value("${hotel.journal.max-backlog:50000}")
+    private long maxBacklog;
+
+    @Value("${hotel.journal.append-timeout-ms:5000}")
+    private long appendTimeoutMs;
+
+    private final BlockingQueue<PendingAppend> pending = new ArrayBlockingQueue<>(4096);
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private Path root;
+    private FileChannel checkpointChannel;
+    private Thread committer;
+    private volatile boolean running;
+
+    // written only by the committer thread
+    private long nextSeq;
+    private volatile long durableSeq;
+    private volatile long appliedSeq;
+
+    // reader cursor, guarded by this
+    private long readSeq;
+    private Segment readSegment;
+    private int readPosition;
+
+    public record Entry(long seq, byte[] payload) {}
+
+    private record PendingAppend(byte[] payload, CompletableFuture<Long> result) {}
+
+    @PostConstruct
+    public void open() throws IOException {
+        root = Paths.get(directory);
+        Files.createDirectories(root);
+
+        checkpointChannel = FileChannel.open(root.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        appliedSeq = readCheckpoint();
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(root)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        long lastSeq = appliedSeq;
+        for (Path file : files) {
+            Segment segment = Segment.recover(file, segmentBytes, lastSeq + 1);
+            if (segment == null) {
+                log.warn("Discarding order journal segment {} that does not continue sequence {}", file, lastSeq);
+                Files.deleteIfExists(file);
+                continue;
+            }
+            segments.addLast(segment);
+            lastSeq = Math.max(lastSeq, segment.lastSeq);
+        }
+
+        nextSeq = lastSeq + 1;
+        durableSeq = lastSeq;
+        readSeq = appliedSeq;
+        compact();
+
+        if (durableSeq > appliedSeq) {
+            log.info("Order journal recovered {} unapplied order(s)", durableSeq - appliedSeq);
+        }
+
+        running = true;
+        committer = new Thread(this::commitLoop, "order-journal-committer");
+        committer.start();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException, IOException {
+        running = false;
+        if (committer != null) {
+            committer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+        synchronized (segments) {
+            for (Segment segment : segments) {
+                segment.close();
+            }
+            segments.clear();
+        }
+        checkpointChannel.close();
+    }
+
+    /**
+     * Appends a record and blocks until it has been forced to disk together
+     * with whatever else arrived in the same commit window.
+     */
+    public long append(byte[] payload) {
+        if (!running) {
+            throw new RuntimeException("Order journal is not running");
+        }
+        if (HEADER_BYTES + payload.length > segmentBytes) {
+            throw new RuntimeException("Order is too large for the order journal");
+        }
+        if (durableSeq - appliedSeq >= maxBacklog) {
+            throw new RuntimeException("Order journal backlog is full, try again shortly");
+        }
+
+        PendingAppend append = new PendingAppend(payload, new CompletableFuture<>());
+        try {
+            if (!pending.offer(append, appendTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Order journal is busy, try again shortly");
+            }
+            return append.result().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while writing to the order journal", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to write order to the journal", e.getCause());
+        }
+    }
+
+    /**
+     * Returns up to {@code max} durable entries following the reader cursor,
+     * waiting up to {@code timeoutMs} for at least one to become available.
+     */
+    public synchronized List<Entry> poll(int max, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (readSeq >= durableSeq && running) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return List.of();
+            }
+            wait(remaining);
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        long durable = durableSeq;
+        while (entries.size() < max && readSeq < durable) {
+            long seq = readSeq + 1;
+            if (readSegment == null || seq > readSegment.lastSeq) {
+                readSegment = segmentContaining(seq);
+                readPosition = readSegment.positionOf(seq);
+            }
+            Entry entry = readSegment.read(readPosition);
+            readPosition += HEADER_BYTES + entry.payload().length;
+            readSeq = entry.seq();
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Records that every entry up to {@code seq} has been applied, persists
+     * the checkpoint and drops segments that no longer hold unapplied entries.
+     */
+    public void markApplied(long seq) throws IOException {
+        if (seq <= appliedSeq) {
+            return;
+        }
+        writeCheckpoint(seq);
+        appliedSeq = seq;
+        compact();
+    }
+
+    public long getBacklog() {
+        return durableSeq - appliedSeq;
+    }
+
+    private void commitLoop() {
+        List<PendingAppend> batch = new ArrayList<>(commitBatch);
+        while (running || !pending.isEmpty()) {
+            try {
+                PendingAppend first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, commitBatch - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingAppend> batch) {
+        long[] seqs = new long[batch.size()];
+        try {
+            Set<Segment> touched = new LinkedHashSet<>();
+            for (int i = 0; i < batch.size(); i++) {
+                byte[] payload = batch.get(i).payload();
+                Segment segment = writableSegment(HEADER_BYTES + payload.length, touched);
+                seqs[i] = nextSeq;
+                segment.write(nextSeq, payload);
+                touched.add(segment);
+                nextSeq++;
+            }
+            for (Segment segment : touched) {
+                segment.force();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Order journal commit failed", e);
+            for (PendingAppend append : batch) {
+                append.result().completeExceptionally(e);
+            }
+            return;
+        }
+
+        synchronized (this) {
+            durableSeq = nextSeq - 1;
+            notifyAll();
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(seqs[i]);
+        }
+    }
+
+    private Segment writableSegment(int recordBytes, Set<Segment> touched) throws IOException {
+        synchronized (segments) {
+            Segment active = segments.peekLast();
+            if (active != null && active.remaining() >= recordBytes && active.lastSeq == nextSeq - 1) {
+                return active;
+            }
+            if (active != null && !touched.contains(active)) {
+                active.force();
+            }
+            Segment rotated = Segment.create(root.resolve(segmentName(nextSeq)), segmentBytes, nextSeq);
+            segments.addLast(rotated);
+            return rotated;
+        }
+    }
+
+    private Segment segmentContaining(long seq) {
+        synchronized (segments) {
+            for (Segment segment : segments) {
+                if (segment.firstSeq <= seq && seq <= segment.lastSeq) {
+                    return segment;
+                }
+            }
+        }
+        throw new IllegalStateException("Order journal entry " + seq + " is missing");
+    }
+
+    private void compact() throws IOException {
+        synchronized (segments) {
+            while (segments.size() > 1 && segments.peekFirst().lastSeq <= appliedSeq) {
+                Segment applied = segments.removeFirst();
+                applied.close();
+                Files.deleteIfExists(applied.file);
+            }
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        if (checkpointChannel.read(buffer, 0) < Long.BYTES) {
+            return 0L;
+        }
+        return buffer.flip().getLong();
+    }
+
+    private void writeCheckpoint(long seq) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(seq).flip();
+        while (buffer.hasRemaining()) {
+            checkpointChannel.write(buffer, buffer.position());
+        }
+        checkpointChannel.force(false);
+    }
+
+    private static String segmentName(long firstSeq) {
+        return String.format("%020d%s", firstSeq, SEGMENT_SUFFIX);
+    }
+
+    private static final class Segment {
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final long firstSeq;
+        private volatile long lastSeq;
+        private int writePosition;
+        // byte offset of firstSeq + i, filled as records are scanned or written
+        private int[] offsets = new int[1024];
+
+        private Segment(Path file, FileChannel channel, int size, long firstSeq) throws IOException {
+            this.file = file;
+            this.channel = channel;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            this.firstSeq = firstSeq;
+            this.lastSeq = firstSeq - 1;
+        }
+
+        static Segment create(Path file, int size, long firstSeq) throws IOException {
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(file, channel, size, firstSeq);
+        }
+
+        static Segment recover(Path file, int size, long expectedFirstSeq) throws IOException {
+            String name = file.getFileName().toString();
+            long firstSeq = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int mappedSize = (int) Math.max(size, channel.size());
+            Segment segment = new Segment(file, channel, mappedSize, firstSeq);
+            segment.scan();
+
+            // a segment fully behind the checkpoint is harmless; one leaving a gap is not
+            if (firstSeq > expectedFirstSeq) {
+                segment.close();
+                return null;
+            }
+            return segment;
+        }
+
+        private void scan() {
+            CRC32C crc = new CRC32C();
+            int position = 0;
+            long expected = firstSeq;
+            while (position + HEADER_BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + HEADER_BYTES + length > buffer.capacity()
+                        || buffer.getLong(position + 4) != expected) {
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.slice(position + HEADER_BYTES, length));
+                if ((int) crc.getValue() != buffer.getInt(position + 12)) {
+                    break;
+                }
+                recordOffset(expected, position);
+                position += HEADER_BYTES + length;
+                expected++;
+            }
+            lastSeq = expected - 1;
+            writePosition = position;
+
+            // clear a torn tail so it can never be mistaken for a record later
+            int i = position;
+            for (; i + Long.BYTES <= buffer.capacity(); i += Long.BYTES) {
+                buffer.putLong(i, 0L);
+            }
+            for (; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+
+        int remaining() {
+            return buffer.capacity() - writePosition;
+        }
+
+        void write(long seq, byte[] payload) {
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            buffer.put(writePosition + HEADER_BYTES, payload);
+            buffer.putLong(writePosition + 4, seq);
+            buffer.putInt(writePosition + 12, (int) crc.getValue());
+            // length goes last so a reader never sees a header without its payload
+            buffer.putInt(writePosition, payload.length);
+            recordOffset(seq, writePosition);
+            writePosition += HEADER_BYTES + payload.length;
+            lastSeq = seq;
+        }
+
+        int positionOf(long seq) {
+            return offsets[(int) (seq - firstSeq)];
+        }
+
+        Entry read(int position) {
+            int length = buffer.getInt(position);
+            long seq = buffer.getLong(position + 4);
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER_BYTES, payload);
+            return new Entry(seq, payload);
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+
+        private void recordOffset(long seq, int position) {
+            int index = (int) (seq - firstSeq);
+            if (index >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[index] = position;
+        }
+    }
+}
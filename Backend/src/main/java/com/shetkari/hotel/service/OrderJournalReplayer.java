@@ -0,0 +1,120 @@
+package com.shelkari.hotel.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shelkari.hotel.model.Order;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// started by BackgroundServices once the application is ready
+@Component
+public class OrderJournalReplayer {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderJournalReplayer.class);
+
+    @Autowired
+    private OrderJournal orderJournal;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${hotel.journal.replay-batch:64}")
+    private int replayBatch;
+
+    @Value("${hotel.journal.max-retry-delay-ms:30000}")
+    private long maxRetryDelayMs;
+
+    private Thread worker;
+    private volatile boolean running;
+
+    public void start() {
+        running = true;
+        worker = new Thread(this::replayLoop, "order-journal-replayer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker == null) {
+            return;
+        }
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void replayLoop() {
+        long delay = 100;
+        while (running) {
+            try {
+                List<OrderJournal.Entry> batch = orderJournal.poll(replayBatch, 1000);
+                for (OrderJournal.Entry entry : batch) {
+                    apply(entry);
+                }
+                if (!batch.isEmpty()) {
+                    orderJournal.markApplied(batch.get(batch.size() - 1).seq());
+                }
+                delay = 100;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Failed to checkpoint the order journal", e);
+            } catch (RuntimeException e) {
+                // this thread is the only thing draining the journal, so it must never die
+                log.error("Order journal replay failed, retrying in {} ms", delay, e);
+                if (!pause(delay)) {
+                    return;
+                }
+                delay = Math.min(delay * 2, maxRetryDelayMs);
+            }
+        }
+    }
+
+    // entries are applied strictly in order, so a Mongo outage holds back everything behind it
+    private void apply(OrderJournal.Entry entry) throws InterruptedException {
+        Order order;
+        try {
+            order = objectMapper.readValue(entry.payload(), Order.class);
+        } catch (IOException e) {
+            log.error("Skipping unreadable order journal entry {}", entry.seq(), e);
+            return;
+        }
+
+        long delay = 100;
+        while (true) {
+            try {
+                orderService.applyJournaledOrder(order);
+                return;
+            } catch (DataAccessException e) {
+                log.warn("Mongo unavailable while replaying order {}, retrying in {} ms", order.getId(), delay);
+            } catch (RuntimeException e) {
+                // anything else is retried too: skipping the entry would lose an acknowledged order
+                log.error("Failed to replay order {}, retrying in {} ms", order.getId(), delay, e);
+            }
+            Thread.sleep(delay);
+            delay = Math.min(delay * 2, maxRetryDelayMs);
+        }
+    }
+
+    private boolean pause(long delay) {
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
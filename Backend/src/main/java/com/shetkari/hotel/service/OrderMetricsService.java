@@ -0,0 +1,252 @@
+package com.shelkari.hotel.service;
+
+import com.shelkari.hotel.model.Money;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import jakarta.annotation.PostConstruct;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Last 24 hours of order activity in per-minute buckets. Each metric is a
+ * ring of primitive longs indexed by epoch minute modulo the ring size; a
+ * slot whose stamp is not the minute being written is stale and reset first.
+ * While the orders change stream is open every replica's inserts arrive
+ * through it, and the rings are only rebuilt from Mongo when the stream
+ * opens or a recent order is deleted. Without it, local order events keep
+ * this node's own orders current between periodic rebuilds.
+ */
+@Service
+public class OrderMetricsService implements ChangeStreamSubscriber {
+
+    private static final int MINUTES = 24 * 60;
+    private static final long MINUTE_MS = 60_000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // guarded by this; replaced wholesale by each rebuild
+    private Rings rings = new Rings();
+    // epoch second the current rings were read from Mongo; guarded by this
+    private long rebuiltAtSecond;
+    private volatile boolean streamOpen;
+
+    static final class Rings {
+        final long[] slotMinute = new long[MINUTES];
+        final long[] orderCounts = new long[MINUTES];
+        final long[] revenue = new long[MINUTES];
+
+        Rings() {
+            Arrays.fill(slotMinute, -1);
+        }
+
+        void record(long epochMillis, long orders, long paise, long now) {
+            long minute = epochMillis / MINUTE_MS;
+            long nowMinute = now / MINUTE_MS;
+            if (minute <= nowMinute - MINUTES || minute > nowMinute) {
+                return;
+            }
+            int slot = (int) (minute % MINUTES);
+            if (slotMinute[slot] != minute) {
+                slotMinute[slot] = minute;
+                orderCounts[slot] = 0;
+                revenue[slot] = 0;
+            }
+            orderCounts[slot] += orders;
+            revenue[slot] += paise;
+        }
+
+        // adds every live minute in [firstMinute, lastMinute] to its bucket
+        void sum(long firstMinute, long lastMinute, int resolution, long[] bucketOrders, long[] bucketRevenue) {
+            for (long minute = firstMinute; minute <= lastMinute; minute++) {
+                int slot = (int) (minute % MINUTES);
+                if (slotMinute[slot] == minute) {
+                    int bucket = (int) ((minute - firstMinute) / resolution);
+                    bucketOrders[bucket] += orderCounts[slot];
+                    bucketRevenue[bucket] += revenue[slot];
+                }
+            }
+        }
+    }
+
+    // rebuilds and the dashboard's daily count both range over createdAt
+    @PostConstruct
+    public void ensureCreatedAtIndex() {
+        mongoTemplate.indexOps("orders").ensureIndex(new Index().on("createdAt", Sort.Direction.ASC));
+    }
+
+    // runs before the journal replayer starts, so replayed orders are not counted twice
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rebuild() {
+        long now = System.currentTimeMillis();
+        Query query = Query.query(Criteria.where("createdAt").gte(new Date(now - MINUTES * MINUTE_MS)));
+        query.fields().include("createdAt").include("totalPrice");
+
+        // built aside so readers are not blocked by the query; an order landing meanwhile
+        // may be counted twice or not at all
+        Rings fresh = new Rings();
+        try (Stream<Document> orders = mongoTemplate.stream(query, Document.class, "orders")) {
+            orders.forEach(order -> {
+                Date createdAt = order.getDate("createdAt");
+                Object totalPrice = order.get("totalPrice");
+                if (createdAt == null) {
+                    return;
+                }
+                fresh.record(createdAt.getTime(), 1, totalPrice instanceof Number n ? n.longValue() : 0L, now);
+            });
+        }
+
+        synchronized (this) {
+            rings = fresh;
+            rebuiltAtSecond = now / 1000;
+        }
+    }
+
+    // only needed for other replicas' orders, which an open change stream already delivers
+    @Scheduled(initialDelayString = "${hotel.metrics.rebuild-ms:60000}",
+            fixedDelayString = "${hotel.metrics.rebuild-ms:60000}")
+    public void refresh() {
+        if (!streamOpen) {
+            rebuild();
+        }
+    }
+
+    @EventListener
+    public void onOrderEvent(OrderEvent event) {
+        // the change stream reports this node's writes as well
+        if (event.createdAt() == null || streamOpen) {
+            return;
+        }
+        int sign = event.type() == OrderEvent.Type.PLACED ? 1 : -1;
+        synchronized (this) {
+            rings.record(event.createdAt().getTime(), sign, sign * event.totalPrice(), System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public String collection() {
+        return "orders";
+    }
+
+    @Override
+    public void onChange(ChangeStreamDocument<Document> change) {
+        switch (change.getOperationType()) {
+            case INSERT -> {
+                Document order = change.getFullDocument();
+                Date createdAt = order != null ? order.getDate("createdAt") : null;
+                if (createdAt == null) {
+                    return;
+                }
+                Object totalPrice = order.get("totalPrice");
+                synchronized (this) {
+                    // a resumed stream replays inserts the rebuild on opening already read
+                    if (change.getClusterTime() != null && change.getClusterTime().getTime() < rebuiltAtSecond) {
+                        return;
+                    }
+                    rings.record(createdAt.getTime(), 1, totalPrice instanceof Number n ? n.longValue() : 0L,
+                            System.currentTimeMillis());
+                }
+            }
+            // a delete carries no document, so what it takes off is only known from a rebuild;
+            // the ids are ObjectIds minted when the order was placed, and archived orders are old
+            case DELETE -> {
+                if (placedWithinWindow(change.getDocumentKey().get("_id"))) {
+                    rebuild();
+                }
+            }
+            default -> {
+                // updates do not change counts or totals
+            }
+        }
+    }
+
+    @Override
+    public void onResync() {
+        rebuild();
+    }
+
+    @Override
+    public void onStreamOpened() {
+        streamOpen = true;
+        rebuild();
+    }
+
+    @Override
+    public void onStreamClosed() {
+        streamOpen = false;
+    }
+
+    private static boolean placedWithinWindow(BsonValue id) {
+        Date placedAt;
+        if (id.isObjectId()) {
+            placedAt = id.asObjectId().getValue().getDate();
+        } else if (id.isString() && ObjectId.isValid(id.asString().getValue())) {
+            placedAt = new ObjectId(id.asString().getValue()).getDate();
+        } else {
+            return true;
+        }
+        return placedAt.getTime() > System.currentTimeMillis() - MINUTES * MINUTE_MS - MINUTE_MS;
+    }
+
+    /**
+     * Returns buckets of {@code resolutionMinutes} covering the last
+     * {@code windowMinutes}, oldest first, aligned to the resolution.
+     */
+    public Map<String, Object> getTimeSeries(int resolutionMinutes, int windowMinutes) {
+        return getTimeSeries(resolutionMinutes, windowMinutes, System.currentTimeMillis());
+    }
+
+    Map<String, Object> getTimeSeries(int resolutionMinutes, int windowMinutes, long now) {
+        int resolution = Math.max(1, Math.min(resolutionMinutes, MINUTES));
+        int window = Math.max(resolution, Math.min(windowMinutes, MINUTES));
+        long nowMinute = now / MINUTE_MS;
+        long firstMinute = (nowMinute - window + 1) / resolution * resolution;
+        firstMinute = Math.max(firstMinute, nowMinute - MINUTES + 1);
+
+        int points = (int) ((nowMinute - firstMinute) / resolution + 1);
+        long[] bucketOrders = new long[points];
+        long[] bucketRevenue = new long[points];
+        synchronized (this) {
+            rings.sum(firstMinute, nowMinute, resolution, bucketOrders, bucketRevenue);
+        }
+
+        List<Map<String, Object>> series = new ArrayList<>(points);
+        long totalOrders = 0;
+        long totalRevenue = 0;
+        for (int i = 0; i < points; i++) {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("start", new Date((firstMinute + (long) i * resolution) * MINUTE_MS));
+            point.put("orders", bucketOrders[i]);
+            point.put("revenue", Money.toRupees(bucketRevenue[i]));
+            point.put("averageTicket", Money.toRupees(bucketOrders[i] > 0 ? bucketRevenue[i] / bucketOrders[i] : 0));
+            series.add(point);
+            totalOrders += bucketOrders[i];
+            totalRevenue += bucketRevenue[i];
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("resolutionMinutes", resolution);
+        result.put("windowMinutes", window);
+        result.put("totalOrders", totalOrders);
+        result.put("totalRevenue", Money.toRupees(totalRevenue));
+        result.put("averageTicket", Money.toRupees(totalOrders > 0 ? totalRevenue / totalOrders : 0));
+        result.put("ordersPerHour", totalOrders * 60.0 / window);
+        result.put("points", series);
+        return result;
+    }
+}
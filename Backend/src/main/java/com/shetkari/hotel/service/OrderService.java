@@ -2,7 +2,16 @@ package com.shelkari.hotel.service;
 
 import com.shelkari.hotel.model.*;
 import com.shelkari.hotel.repository.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -10,6 +19,8 @@ import java.util.stream.Collectors;
 @Service
 public class OrderService {
 
+    private static final int APPLIED_ORDER_WINDOW = 100;
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -20,7 +31,25 @@ public class OrderService {
     private MenuItemRepository menuItemRepository;
 
     @Autowired
-    private BillRepository billRepository;
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderJournal orderJournal;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private InventoryService inventoryService;
 
     public List<Map<String, Object>> getAllOrdersWithDetails() {
         List<Order> orders = orderRepository.findAll();
@@ -60,79 +89,126 @@ public class OrderService {
                 orderDetails.put("guest", guestDetails);
             }
 
-            List<Map<String, Object>> itemsWithDetails = order.getItems().stream().map(item -> {
+            List<Map<String, Object>> itemsWithDetails = new ArrayList<>(order.getItems().size());
+            long totalPrice = 0;
+            for (Order.OrderItem item : order.getItems()) {
                 Map<String, Object> itemDetails = new HashMap<>();
                 itemDetails.put("menuItemId", item.getMenuItemId());
                 itemDetails.put("quantity", item.getQuantity());
 
                 MenuItem menuItem = menuItemMap.get(item.getMenuItemId());
                 if (menuItem != null) {
+                    long linePrice = Money.times(menuItem.getPrice(), item.getQuantity());
                     Map<String, Object> menuItemDetails = new HashMap<>();
                     menuItemDetails.put("name", menuItem.getName());
-                    menuItemDetails.put("price", menuItem.getPrice());
+                    menuItemDetails.put("price", Money.toRupees(menuItem.getPrice()));
                     itemDetails.put("menuItem", menuItemDetails);
-                    itemDetails.put("price", item.getQuantity() * menuItem.getPrice());
+                    itemDetails.put("price", Money.toRupees(linePrice));
+                    totalPrice = Money.add(totalPrice, linePrice);
                 } else {
                     Map<String, Object> menuItemDetails = new HashMap<>();
                     menuItemDetails.put("name", "Unknown");
-                    menuItemDetails.put("price", 0.0);
+                    menuItemDetails.put("price", Money.toRupees(0));
                     itemDetails.put("menuItem", menuItemDetails);
-                    itemDetails.put("price", 0.0);
+                    itemDetails.put("price", Money.toRupees(0));
                 }
-                return itemDetails;
-            }).collect(Collectors.toList());
+                itemsWithDetails.add(itemDetails);
+            }
 
             orderDetails.put("items", itemsWithDetails);
-
-            Double totalPrice = itemsWithDetails.stream()
-                    .mapToDouble(item -> (Double) item.get("price"))
-                    .sum();
-            orderDetails.put("totalPrice", totalPrice);
+            orderDetails.put("totalPrice", Money.toRupees(totalPrice));
 
             return orderDetails;
         }).collect(Collectors.toList());
     }
 
     public Order createOrder(Order order) {
-        Order savedOrder = orderRepository.save(order);
-
-        Optional<Bill> existingBill = billRepository.findByGuestId(order.getGuestId());
-        if (existingBill.isPresent()) {
-            Bill bill = existingBill.get();
-            bill.setFoodCharges(bill.getFoodCharges() + order.getTotalPrice());
-            bill.setTotalAmount(bill.getRoomCharges() + bill.getFoodCharges());
-            billRepository.save(bill);
-        } else {
-            Bill newBill = new Bill();
-            newBill.setGuestId(order.getGuestId());
-            newBill.setRoomCharges(0.0);
-            newBill.setFoodCharges(order.getTotalPrice());
-            newBill.setTotalAmount(order.getTotalPrice());
-            billRepository.save(newBill);
+        if (order.getGuestId() == null || order.getItems() == null || order.getItems().isEmpty()) {
+            throw new RuntimeException("Order requires a guest and at least one item");
+        }
+        // item prices are line totals, so the order total is their exact sum
+        long totalPrice = 0;
+        for (Order.OrderItem item : order.getItems()) {
+            totalPrice = Money.add(totalPrice, item.getPrice());
+        }
+        order.setTotalPrice(totalPrice);
+        if (order.getId() == null) {
+            order.setId(new ObjectId().toHexString());
         }
 
-        return savedOrder;
+        inventoryService.reserve(order);
+        try {
+            orderJournal.append(objectMapper.writeValueAsBytes(order));
+        } catch (JsonProcessingException e) {
+            inventoryService.release(order);
+            throw new RuntimeException("Failed to serialize order", e);
+        } catch (RuntimeException e) {
+            inventoryService.release(order);
+            throw e;
+        }
+        return order;
+    }
+
+    public boolean applyJournaledOrder(Order order) {
+        Query billQuery = Query.query(Criteria.where("guestId").is(order.getGuestId()));
+        mongoTemplate.upsert(billQuery, new Update()
+                .setOnInsert("roomCharges", 0L)
+                .setOnInsert("foodCharges", 0L)
+                .setOnInsert("totalAmount", 0L)
+                .setOnInsert("paymentStatus", "Unpaid"), Bill.class);
+
+        Query notYetApplied = Query.query(Criteria.where("guestId").is(order.getGuestId())
+                .and("appliedOrderIds").ne(order.getId()));
+        Update increment = new Update()
+                .inc("foodCharges", order.getTotalPrice())
+                .inc("totalAmount", order.getTotalPrice());
+        increment.push("appliedOrderIds").slice(-APPLIED_ORDER_WINDOW).each(order.getId());
+        boolean applied = mongoTemplate.updateFirst(notYetApplied, increment, Bill.class).getModifiedCount() > 0;
+
+        // after a crash the bill may already include the order while the order itself was never
+        // saved, so the event follows whether the order is new, not whether the bill changed
+        boolean placed;
+        try {
+            mongoTemplate.insert(order);
+            placed = true;
+        } catch (DuplicateKeyException e) {
+            // saved by an earlier replay and maybe moved on since, so the journaled copy must not overwrite it
+            placed = false;
+        }
+        billService.evict(order.getGuestId());
+        dashboardService.invalidate();
+        if (placed) {
+            eventPublisher.publishEvent(new OrderEvent(OrderEvent.Type.PLACED, order.getId(),
+                    order.getCreatedAt(), order.getTotalPrice()));
+        }
+        return applied;
     }
 
     public Order updateOrderStatus(String id, String status) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         order.setStatus(status);
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        dashboardService.invalidate();
+        return saved;
     }
 
     public void deleteOrder(String id) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
-
-        Optional<Bill> bill = billRepository.findByGuestId(order.getGuestId());
-        if (bill.isPresent()) {
-            Bill existingBill = bill.get();
-            existingBill.setFoodCharges(existingBill.getFoodCharges() - order.getTotalPrice());
-            existingBill.setTotalAmount(existingBill.getRoomCharges() + existingBill.getFoodCharges());
-            billRepository.save(existingBill);
+        // removing first means concurrent deletes of one order take its charge off only once
+        Order order = mongoTemplate.findAndRemove(Query.query(Criteria.where("_id").is(id)), Order.class);
+        if (order == null) {
+            throw new RuntimeException("Order not found");
         }
 
-        orderRepository.delete(order);
+        // $inc rather than read-modify-write: the journal replayer updates the same bill concurrently
+        long refund = Money.subtract(0L, order.getTotalPrice());
+        mongoTemplate.updateFirst(Query.query(Criteria.where("guestId").is(order.getGuestId())),
+                new Update().inc("foodCharges", refund).inc("totalAmount", refund), Bill.class);
+        billService.evict(order.getGuestId());
+
+        inventoryService.release(order);
+        dashboardService.invalidate();
+        eventPublisher.publishEvent(new OrderEvent(OrderEvent.Type.DELETED, order.getId(),
+                order.getCreatedAt(), order.getTotalPrice()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.shelkari.hotel.service;
+
+public class OutOfStockException extends RuntimeException {
+
+    public OutOfStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,52 @@
+package com.shelkari.hotel.service;
+
+import com.shelkari.hotel.model.ChangeStreamToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Clears out resume tokens of nodes that are gone, which nothing else
+ * expires. Idempotency keys already expire through their TTL index, and
+ * files on each node's own disk are cleaned up by {@link LocalFilePurge}.
+ */
+@Component
+public class PurgeJob implements ScheduledJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PurgeJob.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${hotel.jobs.purge.fixed-delay:6h}")
+    private Duration fixedDelay;
+
+    @Value("${hotel.jobs.purge.token-retention:30d}")
+    private Duration tokenRetention;
+
+    @Override
+    public String name() {
+        return "purge";
+    }
+
+    @Override
+    public JobTrigger trigger() {
+        return JobTrigger.fixedDelay(fixedDelay);
+    }
+
+    @Override
+    public void run(JobContext context) {
+        Date cutoff = Date.from(Instant.now().minus(tokenRetention));
+        long removed = mongoTemplate.remove(Query.query(Criteria.where("updatedAt").lt(cutoff)),
+                ChangeStreamToken.class).getDeletedCount();
+        log.info("Purged {} stale change stream token(s)", removed);
+    }
+}
@@ -0,0 +1,17 @@
+package com.shelkari.hotel.service;
+
+/**
+ * Periodic maintenance run by {@link JobScheduler} on exactly one node at a
+ * time. A run that stops early, whether it failed, lost its lease or the node
+ * shut down, is resumed from its last saved checkpoint, possibly on another
+ * node, so every chunk of work must be safe to repeat.
+ */
+public interface ScheduledJob {
+
+    String name();
+
+    JobTrigger trigger();
+
+    // work in chunks until done or until the context is no longer active
+    void run(JobContext context);
+}
@@ -0,0 +1,209 @@
+package com.shelkari.hotel.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.result.UpdateResult;
+import com.shelkari.hotel.model.Bill;
+import com.shelkari.hotel.model.IdempotencyRecord;
+import com.shelkari.hotel.model.Order;
+import com.shelkari.hotel.repository.IdempotencyRecordRepository;
+import com.shelkari.hotel.service.BillService;
+import com.shelkari.hotel.service.IdempotencyService;
+import com.shelkari.hotel.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives the idempotent endpoints through their controllers, so the
+ * fingerprints are the ones real requests get. Each IdempotencyService stands for one node; they
+ * share an in-memory stand-in for the idempotency_keys collection.
+ */
+public class IdempotentEndpointsTest {
+
+	private static final String ORDER = "{\"guestId\":\"g1\",\"items\":[{\"menuItemId\":\"m1\",\"quantity\":2,"
+			+ "\"price\":240.50}],\"totalPrice\":240.50}";
+	private static final String OTHER_ORDER = "{\"guestId\":\"g1\",\"items\":[{\"menuItemId\":\"m1\",\"quantity\":3,"
+			+ "\"price\":360.75}],\"totalPrice\":360.75}";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Map<String, IdempotencyRecord> store = new ConcurrentHashMap<>();
+
+	private IdempotencyRecordRepository repository;
+	private MongoTemplate mongoTemplate;
+	private OrderService orderService;
+	private BillService billService;
+
+	@BeforeEach
+	public void setUp() {
+		repository = mock(IdempotencyRecordRepository.class);
+		when(repository.findById(anyString())).thenAnswer(call -> Optional.ofNullable(store.get(call.getArgument(0))));
+		when(repository.insert(any(IdempotencyRecord.class))).thenAnswer(call -> {
+			IdempotencyRecord record = call.getArgument(0);
+			if (store.putIfAbsent(record.getId(), record) != null) {
+				throw new DuplicateKeyException(record.getId());
+			}
+			return record;
+		});
+		when(repository.save(any(IdempotencyRecord.class))).thenAnswer(call -> {
+			IdempotencyRecord record = call.getArgument(0);
+			store.put(record.getId(), record);
+			return record;
+		});
+		doAnswer(call -> store.remove(call.getArgument(0))).when(repository).deleteById(anyString());
+
+		mongoTemplate = mock(MongoTemplate.class);
+		orderService = mock(OrderService.class);
+		when(orderService.createOrder(any(Order.class))).thenAnswer(call -> call.getArgument(0));
+		billService = mock(BillService.class);
+		when(billService.updateBillPaymentStatus(anyString(), anyString())).thenAnswer(call -> {
+			Bill bill = new Bill("g1", 0L, 24050L, 24050L);
+			bill.setId(call.getArgument(0));
+			bill.setPaymentStatus(call.getArgument(1));
+			return bill;
+		});
+	}
+
+	@Test
+	public void retryWithTheSameBodyReplaysTheFirstResponse() throws Exception {
+		OrderController controller = controllerOn(node());
+		Order first = objectMapper.readValue(ORDER, Order.class);
+		Order retry = objectMapper.readValue(ORDER, Order.class);
+		// server-side defaults differ between attempts and must not count as a different request
+		retry.setCreatedAt(new Date(first.getCreatedAt().getTime() + 1000));
+
+		ResponseEntity<?> original = controller.createOrder(first, "key-1");
+		ResponseEntity<?> replayed = controller.createOrder(retry, "key-1");
+
+		assertEquals(200, original.getStatusCode().value());
+		assertEquals(200, replayed.getStatusCode().value());
+		assertEquals("true", replayed.getHeaders().getFirst("Idempotent-Replayed"));
+		verify(orderService, times(1)).createOrder(any(Order.class));
+	}
+
+	@Test
+	public void retryOnAnotherNodeReplaysTheStoredResponse() throws Exception {
+		controllerOn(node()).createOrder(objectMapper.readValue(ORDER, Order.class), "key-1");
+
+		ResponseEntity<?> replayed = controllerOn(node()).createOrder(objectMapper.readValue(ORDER, Order.class), "key-1");
+
+		assertEquals(200, replayed.getStatusCode().value());
+		assertEquals("true", replayed.getHeaders().getFirst("Idempotent-Replayed"));
+		verify(orderService, times(1)).createOrder(any(Order.class));
+	}
+
+	@Test
+	public void reusingAKeyForADifferentBodyIsRejected() throws Exception {
+		OrderController controller = controllerOn(node());
+		controller.createOrder(objectMapper.readValue(ORDER, Order.class), "key-1");
+
+		ResponseEntity<?> sameNode = controller.createOrder(objectMapper.readValue(OTHER_ORDER, Order.class), "key-1");
+		ResponseEntity<?> otherNode = controllerOn(node())
+				.createOrder(objectMapper.readValue(OTHER_ORDER, Order.class), "key-1");
+
+		assertEquals(422, sameNode.getStatusCode().value());
+		assertEquals(422, otherNode.getStatusCode().value());
+		verify(orderService, times(1)).createOrder(any(Order.class));
+	}
+
+	@Test
+	public void aRecentPendingClaimMakesRetriesWait() throws Exception {
+		store.put("order-create:key-1", new IdempotencyRecord("order-create:key-1", "in-flight"));
+
+		ResponseEntity<?> response = controllerOn(node()).createOrder(objectMapper.readValue(ORDER, Order.class), "key-1");
+
+		assertEquals(409, response.getStatusCode().value());
+		verify(orderService, never()).createOrder(any(Order.class));
+	}
+
+	@Test
+	public void anAbandonedPendingClaimIsTakenOver() throws Exception {
+		IdempotencyRecord abandoned = new IdempotencyRecord("order-create:key-1", "in-flight");
+		abandoned.setCreatedAt(new Date(System.currentTimeMillis() - 60_000));
+		store.put(abandoned.getId(), abandoned);
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+				.thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+		ResponseEntity<?> response = controllerOn(node()).createOrder(objectMapper.readValue(ORDER, Order.class), "key-1");
+
+		assertEquals(200, response.getStatusCode().value());
+		assertNull(response.getHeaders().getFirst("Idempotent-Replayed"));
+		verify(orderService, times(1)).createOrder(any(Order.class));
+	}
+
+	@Test
+	public void paymentRetryOnAnotherNodeReplaysTheStoredResponse() {
+		Map<String, String> request = new LinkedHashMap<>();
+		request.put("paymentStatus", "Paid");
+		request.put("method", "cash");
+		// the same fields arriving in another order must still count as the same request
+		Map<String, String> retry = new HashMap<>();
+		retry.put("method", "cash");
+		retry.put("paymentStatus", "Paid");
+
+		ResponseEntity<?> original = billControllerOn(node()).updateBillPaymentStatus("b1", request, "key-1");
+		ResponseEntity<?> replayed = billControllerOn(node()).updateBillPaymentStatus("b1", retry, "key-1");
+
+		assertEquals(200, original.getStatusCode().value());
+		assertEquals(200, replayed.getStatusCode().value());
+		assertEquals("true", replayed.getHeaders().getFirst("Idempotent-Replayed"));
+		verify(billService, times(1)).updateBillPaymentStatus("b1", "Paid");
+	}
+
+	@Test
+	public void paymentKeyReusedForAnotherStatusOrBillIsRejected() {
+		billControllerOn(node()).updateBillPaymentStatus("b1", Map.of("paymentStatus", "Paid"), "key-1");
+
+		ResponseEntity<?> otherStatus = billControllerOn(node())
+				.updateBillPaymentStatus("b1", Map.of("paymentStatus", "Unpaid"), "key-1");
+		ResponseEntity<?> otherBill = billControllerOn(node())
+				.updateBillPaymentStatus("b2", Map.of("paymentStatus", "Paid"), "key-1");
+
+		assertEquals(422, otherStatus.getStatusCode().value());
+		assertEquals(422, otherBill.getStatusCode().value());
+		verify(billService, times(1)).updateBillPaymentStatus(anyString(), anyString());
+	}
+
+	private IdempotencyService node() {
+		IdempotencyService service = new IdempotencyService();
+		ReflectionTestUtils.setField(service, "idempotencyRecordRepository", repository);
+		ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+		ReflectionTestUtils.setField(service, "ttlSeconds", 86400L);
+		ReflectionTestUtils.setField(service, "maxLocalEntries", 100);
+		ReflectionTestUtils.setField(service, "waitMs", 200L);
+		ReflectionTestUtils.setField(service, "pendingTtlMs", 30_000L);
+		return service;
+	}
+
+	private BillController billControllerOn(IdempotencyService node) {
+		BillController controller = new BillController();
+		ReflectionTestUtils.setField(controller, "billService", billService);
+		ReflectionTestUtils.setField(controller, "idempotencyService", node);
+		return controller;
+	}
+
+	private OrderController controllerOn(IdempotencyService node) {
+		OrderController controller = new OrderController();
+		ReflectionTestUtils.setField(controller, "orderService", orderService);
+		ReflectionTestUtils.setField(controller, "idempotencyService", node);
+		return controller;
+	}
+}
@@ -0,0 +1,53 @@
+package com.shelkari.hotel.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MoneyTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	public void writesPaiseAsRupees() throws Exception {
+		String json = objectMapper.writeValueAsString(new Order.OrderItem("m1", 3, 30L));
+
+		assertTrue(json.contains("\"price\":0.30"), json);
+	}
+
+	@Test
+	public void readsRupeesWithoutFloatingPointDrift() throws Exception {
+		// 0.29 as a double is 0.28999..., which would truncate to 28 paise
+		Order.OrderItem item = objectMapper.readValue("{\"menuItemId\":\"m1\",\"quantity\":1,\"price\":0.29}",
+				Order.OrderItem.class);
+
+		assertEquals(29L, item.getPrice());
+	}
+
+	@Test
+	public void roundTripsThroughJson() throws Exception {
+		Order order = new Order("g1", List.of(new Order.OrderItem("m1", 2, 24050L)), 123456789012L);
+
+		Order read = objectMapper.readValue(objectMapper.writeValueAsString(order), Order.class);
+
+		assertEquals(123456789012L, read.getTotalPrice());
+		assertEquals(24050L, read.getItems().get(0).getPrice());
+	}
+
+	@Test
+	public void roundsSubPaiseHalfUp() throws Exception {
+		MenuItem item = objectMapper.readValue("{\"name\":\"Tea\",\"price\":10.005}", MenuItem.class);
+
+		assertEquals(1001L, item.getPrice());
+	}
+
+	@Test
+	public void arithmeticFailsInsteadOfOverflowing() {
+		assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1));
+		assertThrows(ArithmeticException.class, () -> Money.times(Long.MAX_VALUE / 2, 3));
+	}
+}
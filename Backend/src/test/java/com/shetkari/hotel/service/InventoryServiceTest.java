@@ -0,0 +1,204 @@
+package com.shelkari.hotel.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.shelkari.hotel.model.Ingredient;
+import com.shelkari.hotel.model.Order;
+import com.shelkari.hotel.model.Recipe;
+import com.shelkari.hotel.repository.IngredientRepository;
+import com.shelkari.hotel.repository.RecipeRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two services sharing one Mongo stand in for two replicas selling the same stock.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class InventoryServiceTest {
+
+	private static final String MENU_ITEM = "thali";
+	private static final long STOCK = 200;
+
+	@Container
+	private static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+	private static MongoClient client;
+	private static MongoTemplate mongoTemplate;
+	private static IngredientRepository ingredientRepository;
+	private static RecipeRepository recipeRepository;
+
+	private String riceId;
+
+	@BeforeAll
+	public static void connect() {
+		client = MongoClients.create(mongo.getConnectionString());
+		mongoTemplate = new MongoTemplate(client, "inventory-test");
+		MongoRepositoryFactory repositories = new MongoRepositoryFactory(mongoTemplate);
+		ingredientRepository = repositories.getRepository(IngredientRepository.class);
+		recipeRepository = repositories.getRepository(RecipeRepository.class);
+	}
+
+	@AfterAll
+	public static void disconnect() {
+		client.close();
+	}
+
+	@BeforeEach
+	public void stock() {
+		mongoTemplate.dropCollection(Ingredient.class);
+		mongoTemplate.dropCollection(Recipe.class);
+		riceId = ingredientRepository.save(new Ingredient("Rice", "portion", STOCK)).getId();
+		recipeRepository.save(new Recipe(MENU_ITEM, List.of(new Recipe.RecipeLine(riceId, 1))));
+	}
+
+	@Test
+	public void twoNodesNeverSellMoreThanTheSharedStock() throws Exception {
+		List<InventoryService> nodes = List.of(node(), node());
+		Queue<Order> placed = new ConcurrentLinkedQueue<>();
+
+		int attempts = storm(nodes, 8, 60, service -> {
+			Order order = order(1);
+			try {
+				service.reserve(order);
+				placed.add(order);
+			} catch (OutOfStockException e) {
+				// expected once the stock runs out
+			}
+		});
+
+		assertTrue(attempts > STOCK);
+		assertTrue(placed.size() <= STOCK, "sold " + placed.size() + " of " + STOCK);
+		nodes.forEach(InventoryService::flush);
+		assertEquals(STOCK - placed.size(), storedStock());
+		// whatever one node held back at the end is free again after the flush
+		for (long left = storedStock(); left > 0; left--) {
+			nodes.get(0).reserve(order(1));
+		}
+		assertThrows(OutOfStockException.class, () -> nodes.get(1).reserve(order(1)));
+	}
+
+	@Test
+	public void releasesAndFlushesRacingWithReservationsKeepTheCountExact() throws Exception {
+		List<InventoryService> nodes = List.of(node(), node());
+		Queue<Order> kept = new ConcurrentLinkedQueue<>();
+		AtomicLong placed = new AtomicLong();
+
+		storm(nodes, 8, 100, service -> {
+			Order order = order(2);
+			try {
+				service.reserve(order);
+			} catch (OutOfStockException e) {
+				return;
+			}
+			// every other order is cancelled, on whichever node the delete lands
+			if (placed.incrementAndGet() % 2 == 0) {
+				nodes.get(order.hashCode() & 1).release(order);
+			} else {
+				kept.add(order);
+			}
+		});
+
+		nodes.forEach(InventoryService::flush);
+		assertEquals(STOCK - 2L * kept.size(), storedStock());
+		// a second round picks up what the other node handed back after this one flushed
+		nodes.forEach(InventoryService::flush);
+		for (InventoryService node : nodes) {
+			assertEquals(storedStock(), node.getAllIngredients().get(0).getStock());
+		}
+	}
+
+	@Test
+	public void aMultiUnitOrderTakesAllOrNothing() {
+		InventoryService node = node();
+		node.reserve(order((int) STOCK - 1));
+
+		assertThrows(OutOfStockException.class, () -> node.reserve(order(2)));
+		Order last = order(1);
+		node.reserve(last);
+		assertEquals(1L, last.getReservedStock().get(riceId));
+		assertTrue(node.isSoldOut(MENU_ITEM));
+
+		node.release(last);
+		assertFalse(node.isSoldOut(MENU_ITEM));
+		node.flush();
+		assertEquals(1L, storedStock());
+	}
+
+	// runs the work from several threads per node while both nodes keep flushing; returns the attempts made
+	private static int storm(List<InventoryService> nodes, int threadsPerNode, int perThread, Work work)
+			throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(nodes.size() * threadsPerNode);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicBoolean running = new AtomicBoolean(true);
+		Thread flusher = new Thread(() -> {
+			while (running.get()) {
+				nodes.forEach(InventoryService::flush);
+			}
+		});
+		try {
+			List<Future<?>> tasks = new ArrayList<>();
+			for (InventoryService node : nodes) {
+				for (int t = 0; t < threadsPerNode; t++) {
+					tasks.add(pool.submit(() -> {
+						start.await();
+						for (int i = 0; i < perThread; i++) {
+							work.run(node);
+						}
+						return null;
+					}));
+				}
+			}
+			flusher.start();
+			start.countDown();
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+		} finally {
+			running.set(false);
+			flusher.join();
+			pool.shutdownNow();
+		}
+		return nodes.size() * threadsPerNode * perThread;
+	}
+
+	private interface Work {
+		void run(InventoryService node);
+	}
+
+	private static InventoryService node() {
+		InventoryService service = new InventoryService();
+		ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(service, "ingredientRepository", ingredientRepository);
+		ReflectionTestUtils.setField(service, "recipeRepository", recipeRepository);
+		ReflectionTestUtils.setField(service, "allotmentOrders", 10L);
+		return service;
+	}
+
+	private static Order order(int quantity) {
+		return new Order("g1", List.of(new Order.OrderItem(MENU_ITEM, quantity, 10000L)), 10000L);
+	}
+
+	private long storedStock() {
+		return ingredientRepository.findById(riceId).orElseThrow().getStock();
+	}
+}
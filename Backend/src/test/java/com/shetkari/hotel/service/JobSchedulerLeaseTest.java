@@ -0,0 +1,204 @@
+package com.shelkari.hotel.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.shelkari.hotel.model.JobLease;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two schedulers sharing one Mongo stand in for two replicas.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class JobSchedulerLeaseTest {
+
+	private static final String JOB = "handover";
+	private static final long LEASE_MS = 2000;
+
+	@Container
+	private static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+	private static MongoClient client;
+	private static MongoTemplate mongoTemplate;
+
+	private final List<JobScheduler> nodes = new ArrayList<>();
+
+	@BeforeAll
+	public static void connect() {
+		client = MongoClients.create(mongo.getConnectionString());
+		mongoTemplate = new MongoTemplate(client, "scheduler-test");
+	}
+
+	@AfterAll
+	public static void disconnect() {
+		client.close();
+	}
+
+	@BeforeEach
+	public void clearLeases() {
+		mongoTemplate.dropCollection(JobLease.class);
+	}
+
+	@AfterEach
+	public void stopNodes() throws InterruptedException {
+		for (JobScheduler node : nodes) {
+			node.stop();
+		}
+	}
+
+	@Test
+	public void aStoppingNodeHandsItsCheckpointToTheNext() throws Exception {
+		CountDownLatch working = new CountDownLatch(1);
+		JobScheduler first = node("a", context -> {
+			context.saveCheckpoint("chunk-1");
+			working.countDown();
+			while (context.isActive()) {
+				sleep(10);
+			}
+		});
+		first.runNow(JOB);
+		assertTrue(working.await(5, TimeUnit.SECONDS), "first node never started the job");
+
+		first.stop();
+		JobLease handedBack = lease();
+		assertNull(handedBack.getOwner());
+		assertEquals("chunk-1", handedBack.getCheckpoint());
+
+		BlockingQueue<String> resumedFrom = new LinkedBlockingQueue<>();
+		node("b", context -> resumedFrom.add(String.valueOf(context.getCheckpoint())));
+
+		assertEquals("chunk-1", resumedFrom.poll(5, TimeUnit.SECONDS));
+		JobLease finished = awaitLease(lease -> lease.getOwner() == null && lease.getLastRunBy() != null);
+		assertTrue(finished.getLastRunBy().startsWith("b-"));
+		assertNull(finished.getCheckpoint());
+		assertTrue(finished.getNextRunAt().after(new Date(System.currentTimeMillis() + 50 * 60_000)));
+	}
+
+	@Test
+	public void aCrashedNodesLeaseIsTakenOverOnlyOnceItExpires() throws Exception {
+		long expiresAt = System.currentTimeMillis() + 1000;
+		JobLease stale = new JobLease();
+		stale.setId(JOB);
+		stale.setOwner("crashed-node");
+		stale.setExpiresAt(new Date(expiresAt));
+		stale.setNextRunAt(new Date(expiresAt - 60_000));
+		stale.setCheckpoint("chunk-7");
+		mongoTemplate.save(stale);
+
+		BlockingQueue<Long> startedAt = new LinkedBlockingQueue<>();
+		BlockingQueue<String> resumedFrom = new LinkedBlockingQueue<>();
+		node("b", context -> {
+			startedAt.add(System.currentTimeMillis());
+			resumedFrom.add(String.valueOf(context.getCheckpoint()));
+		});
+
+		Long started = startedAt.poll(5, TimeUnit.SECONDS);
+		assertNotNull(started, "the expired lease was never taken over");
+		assertTrue(started >= expiresAt, "lease taken over before it expired");
+		assertEquals("chunk-7", resumedFrom.poll());
+	}
+
+	@Test
+	public void onlyOneNodeRunsADueJob() throws Exception {
+		BlockingQueue<String> runs = new LinkedBlockingQueue<>();
+		CountDownLatch release = new CountDownLatch(1);
+		JobScheduler first = node("a", context -> {
+			runs.add("a");
+			await(release);
+		});
+		node("b", context -> {
+			runs.add("b");
+			await(release);
+		});
+		first.runNow(JOB);
+
+		assertNotNull(runs.poll(5, TimeUnit.SECONDS));
+		// several ticks of both nodes while the job is still running
+		assertNull(runs.poll(500, TimeUnit.MILLISECONDS));
+		release.countDown();
+	}
+
+	private JobScheduler node(String nodeId, Consumer<JobContext> work) {
+		ScheduledJob job = new ScheduledJob() {
+			@Override
+			public String name() {
+				return JOB;
+			}
+
+			@Override
+			public JobTrigger trigger() {
+				return JobTrigger.fixedDelay(Duration.ofHours(1));
+			}
+
+			@Override
+			public void run(JobContext context) {
+				work.accept(context);
+			}
+		};
+
+		JobScheduler scheduler = new JobScheduler();
+		ReflectionTestUtils.setField(scheduler, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(scheduler, "jobs", List.of(job));
+		ReflectionTestUtils.setField(scheduler, "enabled", true);
+		ReflectionTestUtils.setField(scheduler, "nodeId", nodeId);
+		ReflectionTestUtils.setField(scheduler, "pollMs", 50L);
+		ReflectionTestUtils.setField(scheduler, "leaseMs", LEASE_MS);
+		ReflectionTestUtils.setField(scheduler, "threads", 1);
+		ReflectionTestUtils.setField(scheduler, "retryDelay", Duration.ofMinutes(1));
+		scheduler.start();
+		nodes.add(scheduler);
+		return scheduler;
+	}
+
+	private static JobLease lease() {
+		return mongoTemplate.findById(JOB, JobLease.class);
+	}
+
+	private static JobLease awaitLease(Predicate<JobLease> condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (System.currentTimeMillis() < deadline) {
+			JobLease lease = lease();
+			if (lease != null && condition.test(lease)) {
+				return lease;
+			}
+			Thread.sleep(20);
+		}
+		return fail("lease never reached the expected state: " + lease());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
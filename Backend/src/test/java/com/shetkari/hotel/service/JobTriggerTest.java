@@ -0,0 +1,54 @@
+package com.shelkari.hotel.service;
+
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JobTriggerTest {
+
+	@Test
+	public void fixedDelayCountsFromTheEndOfTheLastRun() {
+		Instant finished = Instant.parse("2026-03-01T10:15:30Z");
+
+		assertEquals(Instant.parse("2026-03-01T16:15:30Z"), JobTrigger.fixedDelay(Duration.ofHours(6)).next(finished));
+	}
+
+	@Test
+	public void fixedDelayMustBePositive() {
+		assertThrows(IllegalArgumentException.class, () -> JobTrigger.fixedDelay(Duration.ZERO));
+		assertThrows(IllegalArgumentException.class, () -> JobTrigger.fixedDelay(Duration.ofSeconds(-1)));
+	}
+
+	@Test
+	public void cronFiresNextInTheServerTimeZone() {
+		JobTrigger nightly = JobTrigger.cron("0 5 0 * * *");
+
+		assertEquals(local(2026, 3, 1, 0, 5), nightly.next(local(2026, 3, 1, 0, 4)));
+		// a run finishing in the very second it fires waits for the next day
+		assertEquals(local(2026, 3, 2, 0, 5), nightly.next(local(2026, 3, 1, 0, 5)));
+		assertEquals(local(2026, 3, 2, 0, 5), nightly.next(local(2026, 3, 1, 23, 59)));
+	}
+
+	@Test
+	public void cronThatNeverFiresAgainIsAnError() {
+		// 30 February
+		JobTrigger never = JobTrigger.cron("0 0 0 30 2 *");
+
+		assertThrows(IllegalStateException.class, () -> never.next(Instant.now()));
+	}
+
+	@Test
+	public void describesItself() {
+		assertEquals("fixed-delay PT6H", JobTrigger.fixedDelay(Duration.ofHours(6)).describe());
+		assertEquals("cron 0 5 0 * * *", JobTrigger.cron("0 5 0 * * *").describe());
+	}
+
+	private static Instant local(int year, int month, int day, int hour, int minute) {
+		return LocalDateTime.of(year, month, day, hour, minute).atZone(ZoneId.systemDefault()).toInstant();
+	}
+}
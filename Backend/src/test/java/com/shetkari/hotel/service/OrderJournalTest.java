@@ -0,0 +1,120 @@
+package com.shelkari.hotel.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OrderJournalTest {
+
+	// length, sequence and checksum in front of every payload
+	private static final int HEADER_BYTES = 16;
+	// every payload in these tests is "order-N", so every record has the same size
+	private static final int RECORD_BYTES = HEADER_BYTES + "order-1".length();
+
+	@TempDir
+	Path directory;
+
+	private final List<OrderJournal> opened = new ArrayList<>();
+
+	@AfterEach
+	public void closeJournals() throws Exception {
+		for (OrderJournal journal : opened) {
+			journal.close();
+		}
+	}
+
+	@Test
+	public void recoversUpToATornTail() throws Exception {
+		OrderJournal journal = open(4096);
+		journal.append(bytes("order-1"));
+		journal.append(bytes("order-2"));
+		journal.append(bytes("order-3"));
+		journal.close();
+
+		// a crash halfway through the third record leaves a payload that fails its checksum
+		try (FileChannel segment = FileChannel.open(directory.resolve(segmentName(1)), StandardOpenOption.WRITE)) {
+			segment.write(ByteBuffer.wrap(bytes("X")), 2L * RECORD_BYTES + HEADER_BYTES);
+		}
+
+		journal = open(4096);
+		assertEquals(2, journal.getBacklog());
+		assertEquals(3, journal.append(bytes("order-4")));
+		assertEquals(List.of("order-1", "order-2", "order-4"), payloads(journal.poll(10, 0)));
+	}
+
+	@Test
+	public void rotatesSegmentsAndReadsAcrossThem() throws Exception {
+		OrderJournal journal = open(2 * RECORD_BYTES);
+		for (int i = 1; i <= 5; i++) {
+			assertEquals(i, journal.append(bytes("order-" + i)));
+		}
+
+		assertEquals(List.of(segmentName(1), segmentName(3), segmentName(5)), segmentFiles());
+		assertEquals(List.of("order-1", "order-2", "order-3", "order-4", "order-5"),
+				payloads(journal.poll(10, 0)));
+	}
+
+	@Test
+	public void compactsAppliedSegmentsAndResumesAfterTheCheckpoint() throws Exception {
+		OrderJournal journal = open(2 * RECORD_BYTES);
+		for (int i = 1; i <= 5; i++) {
+			journal.append(bytes("order-" + i));
+		}
+		journal.poll(10, 0);
+
+		journal.markApplied(4);
+		assertEquals(List.of(segmentName(5)), segmentFiles());
+		assertEquals(1, journal.getBacklog());
+		journal.close();
+
+		journal = open(2 * RECORD_BYTES);
+		assertEquals(1, journal.getBacklog());
+		assertEquals(List.of("order-5"), payloads(journal.poll(10, 0)));
+	}
+
+	private OrderJournal open(int segmentBytes) throws IOException {
+		OrderJournal journal = new OrderJournal();
+		ReflectionTestUtils.setField(journal, "directory", directory.toString());
+		ReflectionTestUtils.setField(journal, "segmentBytes", segmentBytes);
+		ReflectionTestUtils.setField(journal, "commitBatch", 16);
+		ReflectionTestUtils.setField(journal, "maxBacklog", 1000L);
+		ReflectionTestUtils.setField(journal, "appendTimeoutMs", 1000L);
+		journal.open();
+		opened.add(journal);
+		return journal;
+	}
+
+	private List<String> segmentFiles() throws IOException {
+		try (Stream<Path> listing = Files.list(directory)) {
+			return listing.map(path -> path.getFileName().toString())
+					.filter(name -> name.endsWith(".seg"))
+					.sorted()
+					.toList();
+		}
+	}
+
+	private static String segmentName(long firstSeq) {
+		return String.format("%020d.seg", firstSeq);
+	}
+
+	private static List<String> payloads(List<OrderJournal.Entry> entries) {
+		return entries.stream().map(entry -> new String(entry.payload(), StandardCharsets.UTF_8)).toList();
+	}
+
+	private static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,84 @@
+package com.shelkari.hotel.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OrderMetricsServiceTest {
+
+	private static final long MINUTE_MS = 60_000;
+	private static final long DAY_MINUTES = 24 * 60;
+	// the last minute of a five-minute bucket
+	private static final long NOW_MINUTE = 28_333_334;
+	private static final long NOW = NOW_MINUTE * MINUTE_MS;
+
+	@Test
+	public void downsamplesMinutesIntoAlignedBuckets() {
+		OrderMetricsService.Rings rings = new OrderMetricsService.Rings();
+		rings.record(minute(NOW_MINUTE - 14), 1, 100, NOW);
+		rings.record(minute(NOW_MINUTE - 10), 1, 300, NOW);
+		rings.record(minute(NOW_MINUTE - 8), 2, 500, NOW);
+		rings.record(minute(NOW_MINUTE), 1, 1000, NOW);
+
+		Map<String, Object> series = seriesOf(rings, 5, 15);
+
+		assertEquals(List.of(2L, 2L, 1L), column(series, "orders"));
+		assertEquals(List.of(new BigDecimal("4.00"), new BigDecimal("5.00"), new BigDecimal("10.00")),
+				column(series, "revenue"));
+		assertEquals(5L, series.get("totalOrders"));
+		assertEquals(new BigDecimal("19.00"), series.get("totalRevenue"));
+	}
+
+	@Test
+	public void resetsASlotReusedByALaterDay() {
+		OrderMetricsService.Rings rings = new OrderMetricsService.Rings();
+		long yesterday = NOW_MINUTE - DAY_MINUTES;
+		rings.record(minute(yesterday), 3, 900, minute(yesterday));
+
+		// same slot, one full turn of the ring later
+		rings.record(minute(NOW_MINUTE), 1, 100, NOW);
+
+		Map<String, Object> series = seriesOf(rings, 1, 1);
+		assertEquals(List.of(1L), column(series, "orders"));
+		assertEquals(List.of(new BigDecimal("1.00")), column(series, "revenue"));
+	}
+
+	@Test
+	public void skipsSlotsLeftOverFromAnEarlierDay() {
+		OrderMetricsService.Rings rings = new OrderMetricsService.Rings();
+		long yesterday = NOW_MINUTE - 30 - DAY_MINUTES;
+		rings.record(minute(yesterday), 3, 900, minute(yesterday));
+
+		// the slot for thirty minutes ago still holds that minute of yesterday
+		Map<String, Object> series = seriesOf(rings, 60, 24 * 60);
+		assertEquals(0L, series.get("totalOrders"));
+	}
+
+	@Test
+	public void ignoresOrdersOutsideTheLastDay() {
+		OrderMetricsService.Rings rings = new OrderMetricsService.Rings();
+		rings.record(minute(NOW_MINUTE - DAY_MINUTES), 1, 100, NOW);
+		rings.record(minute(NOW_MINUTE + 1), 1, 100, NOW);
+
+		assertEquals(0L, seriesOf(rings, 60, 24 * 60).get("totalOrders"));
+	}
+
+	private static Map<String, Object> seriesOf(OrderMetricsService.Rings rings, int resolution, int window) {
+		OrderMetricsService service = new OrderMetricsService();
+		ReflectionTestUtils.setField(service, "rings", rings);
+		return service.getTimeSeries(resolution, window, NOW);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> column(Map<String, Object> series, String field) {
+		return ((List<Map<String, Object>>) series.get("points")).stream().map(point -> point.get(field)).toList();
+	}
+
+	private static long minute(long minute) {
+		return minute * MINUTE_MS;
+	}
+}
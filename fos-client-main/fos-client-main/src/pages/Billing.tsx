@@ -38,19 +38,22 @@ interface Bill {
 
 const Billing = () => {
 	const [guests, setGuests] = useState<Guest[]>([]);
+	const [openBills, setOpenBills] = useState<Bill[]>([]);
 	const [selectedGuest, setSelectedGuest] = useState<string>("");
 	const [bill, setBill] = useState<Bill | null>(null);
 	const [isLoading, setIsLoading] = useState(false);
 	const [showSuccess, setShowSuccess] = useState(false);
 
 	useEffect(() => {
-		const fetchGuests = async () => {
+		const fetchData = async () => {
 			setIsLoading(true);
 			try {
-				const res = await axios.get("https://fos-server-hfp4.onrender.com/api/guests", {
+				// guests and their open bills in one round trip
+				const res = await axios.get("https://fos-server-hfp4.onrender.com/api/bootstrap/billing", {
 					headers: { Authorization: `Bearer ${localStorage.getItem("token")}` },
 				});
-				setGuests(res.data);
+				setGuests(res.data.guests);
+				setOpenBills(res.data.bills);
 				toast.success("Guests loaded successfully!");
 			} catch (error) {
 				console.error("Failed to fetch guests:", error);
@@ -60,9 +63,15 @@ const Billing = () => {
 			}
 		};
 
-		fetchGuests();
+		fetchData();
 	}, []);
 
+	// shows the bill loaded with the screen straight away; Fetch Bill still gets the latest one
+	const selectGuest = (guestId: string) => {
+		setSelectedGuest(guestId);
+		setBill(openBills.find((b) => b.guestId === guestId) || null);
+	};
+
 	const fetchBill = async () => {
 		if (selectedGuest) {
 			setIsLoading(true);
@@ -74,6 +83,8 @@ const Billing = () => {
 					},
 				);
 				setBill(res.data);
+				// the server sends the bill's id as "id", so bills are matched on their guest
+				setOpenBills(openBills.map((b) => (b.guestId === res.data.guestId ? res.data : b)));
 				toast.success("Bill fetched successfully!");
 			} catch (error: any) {
 				console.error("Failed to fetch bill:", error);
@@ -95,6 +106,9 @@ const Billing = () => {
 					{ headers: { Authorization: `Bearer ${localStorage.getItem("token")}` } },
 				);
 				setBill({ ...bill, paymentStatus: status });
+				setOpenBills(
+					openBills.map((b) => (b.guestId === bill.guestId ? { ...b, paymentStatus: status } : b)),
+				);
 				setShowSuccess(true);
 				setTimeout(() => setShowSuccess(false), 2000);
 				toast.success(`Payment status updated to ${status}!`);
@@ -156,7 +170,7 @@ const Billing = () => {
 				<div className="flex flex-col md:flex-row md:items-center gap-4">
 					<div className="flex-grow">
 						<Select
-							onValueChange={setSelectedGuest}
+							onValueChange={selectGuest}
 							value={selectedGuest}
 							disabled={isLoading}
 						>
@@ -23,6 +23,7 @@ interface MenuItem {
 	_id: string;
 	name: string;
 	price: number;
+	soldOut?: boolean;
 }
 
 interface OrderItem {
@@ -40,20 +41,25 @@ const OrderPlacement: React.FC = () => {
 	const [selectedMenuItem, setSelectedMenuItem] = useState<string>("");
 	const [quantity, setQuantity] = useState<number>(1);
 	const [error, setError] = useState<string>("");
+	// one key per distinct order, so a retried submit cannot create a duplicate
+	const [idempotencyKey, setIdempotencyKey] = useState<string>(() => crypto.randomUUID());
+
+	useEffect(() => {
+		setIdempotencyKey(crypto.randomUUID());
+	}, [selectedGuest, orderItems]);
 
 	useEffect(() => {
 		const fetchData = async () => {
 			try {
-				const [guestsRes, menuRes] = await Promise.all([
-					axios.get("https://fos-server-hfp4.onrender.com/api/guests", {
-						headers: { Authorization: `Bearer ${localStorage.getItem("token")}` },
-					}),
-					axios.get("https://fos-server-hfp4.onrender.com/api/menu", {
+				// one round trip for everything the screen needs
+				const res = await axios.get(
+					"https://fos-server-hfp4.onrender.com/api/bootstrap/order-placement",
+					{
 						headers: { Authorization: `Bearer ${localStorage.getItem("token")}` },
-					}),
-				]);
-				setGuests(guestsRes.data);
-				setMenuItems(menuRes.data);
+					},
+				);
+				setGuests(res.data.guests);
+				setMenuItems(res.data.menu);
 				toast.success("Guests and menu items loaded successfully!");
 			} catch (err) {
 				setError("Failed to load guests or menu items");
@@ -110,7 +116,12 @@ const OrderPlacement: React.FC = () => {
 					totalPrice,
 					status: "Pending",
 				},
-				{ headers: { Authorization: `Bearer ${localStorage.getItem("token")}` } },
+				{
+					headers: {
+						Authorization: `Bearer ${localStorage.getItem("token")}`,
+						"Idempotency-Key": idempotencyKey,
+					},
+				},
 			);
 			setOrderItems([]);
 			setSelectedGuest("");
@@ -178,8 +189,9 @@ const OrderPlacement: React.FC = () => {
 							</SelectTrigger>
 							<SelectContent className="bg-white dark:bg-gray-700 dark:text-gray-200">
 								{menuItems.map((item) => (
-									<SelectItem key={item._id} value={item._id}>
+									<SelectItem key={item._id} value={item._id} disabled={item.soldOut}>
 										{item.name} - ${item.price}
+										{item.soldOut ? " (sold out)" : ""}
 									</SelectItem>
 								))}
 							</SelectContent>